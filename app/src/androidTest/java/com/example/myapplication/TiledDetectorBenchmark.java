@@ -0,0 +1,56 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+// Reports tiles/sec for TiledDetector with the bundled model at several parallelism settings,
+// from real detect() timing on the device. Results go to logcat under the TiledDetectorBenchmark
+// tag: ./gradlew connectedAndroidTest, or run the class from the IDE against a device.
+@RunWith(AndroidJUnit4.class)
+public class TiledDetectorBenchmark {
+    @Test
+    public void detect_reportsTilesPerSecond() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | i;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism : new int[]{1, 2, 4}) {
+            if (parallelism > cores) break;
+            DetectorPool pool = DetectorPool.create(context, Constants.MODEL_PATH, Constants.LABELS_PATH,
+                    new DetectorConfig(), parallelism, Math.max(1, cores / parallelism));
+            TiledDetector tiled = new TiledDetector(pool);
+            tiled.setTileSize(TILE_SIZE);
+            tiled.setParallelism(parallelism);
+            DetectionBuffer out = new DetectionBuffer();
+            // The first frame still pays for lazy allocations, so it is left out.
+            tiled.detect(pixels, WIDTH, HEIGHT, out);
+            tiled.resetTimings();
+            for (int frame = 0; frame < FRAMES; frame++) {
+                tiled.detect(pixels, WIDTH, HEIGHT, out);
+            }
+            pool.close();
+            assertEquals(FRAMES, tiled.getFrameCount());
+            Log.i(TAG, String.format(Locale.ROOT, "parallelism=%d  tiles/frame=%d  %.1f tiles/s  %.1f ms/frame",
+                    parallelism, tiled.getTileCount() / tiled.getFrameCount(), tiled.getTilesPerSecond(),
+                    tiled.getAverageFrameNanos() / 1e6));
+        }
+    }
+
+    private static final String TAG = "TiledDetectorBenchmark";
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+    private static final int TILE_SIZE = 1024;
+    private static final int FRAMES = 5;
+}
@@ -12,6 +12,7 @@ public class BoundingBox {
     private float cnf;
     private int cls;
     private String clsName;
+    private int trackId;
 
     public BoundingBox(float x1, float y1, float x2, float y2, float cx, float cy, float w, float h, float cnf, int cls, String clsName) {
         this.x1 = x1;
@@ -25,6 +26,7 @@ public class BoundingBox {
         this.cnf = cnf;
         this.cls = cls;
         this.clsName = clsName;
+        this.trackId = NO_TRACK;
     }
 
     public float getX1() {
@@ -114,6 +116,15 @@ public class BoundingBox {
     public void setClsName(String clsName) {
         this.clsName = clsName;
     }
-}
 
+    // Stable id assigned by ObjectTracker, or NO_TRACK for raw detections.
+    public int getTrackId() {
+        return trackId;
+    }
 
+    public void setTrackId(int trackId) {
+        this.trackId = trackId;
+    }
+
+    public static final int NO_TRACK = -1;
+}
@@ -4,6 +4,7 @@ import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.graphics.SurfaceTexture;
 import android.hardware.camera2.CameraAccessException;
@@ -13,9 +14,11 @@ import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.PowerManager;
 import android.util.Log;
 import android.util.Range;
 import android.util.Size;
@@ -29,11 +32,15 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class CameraActivity extends AppCompatActivity {
@@ -48,6 +55,11 @@ public class CameraActivity extends AppCompatActivity {
     private Button switchCameraButton;
     private boolean isFlashlightOn = false;
     private Button flashButton;
+    private Button roiButton;
+    private Button hudButton;
+    private Button overlayBackendButton;
+    private boolean isSurfaceOverlay = false;
+    private RoiSelector roiSelector;
     private CameraManager cameraManager;
 
     private SliderManager zoomSliderManager;
@@ -57,6 +69,20 @@ public class CameraActivity extends AppCompatActivity {
     private CameraProperties backCameraProperties;
     private CameraProperties frontCameraProperties;
 
+    private OverlayView overlayView;
+    private SurfaceOverlayView surfaceOverlayView;
+    private ResultDispatcher resultDispatcher;
+    private Detector detector;
+    // Set on the UI thread once the detector has finished setting up in the background.
+    private volatile DetectionPipeline<SourceFrame, TensorSlot> detectionPipeline;
+    private ExecutorService setupExecutor;
+    private InferenceGovernor governor;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    // Detector frames come from their own YUV stream instead of being read back from the preview,
+    // or from a recording when the activity was started with EXTRA_REPLAY_PATH.
+    private FrameSource frameSource;
+    private CameraFrameSource cameraFrameSource;
+
     private void showToast(final String text) {
         runOnUiThread(() -> Toast.makeText(CameraActivity.this, text, Toast.LENGTH_SHORT).show());
     }
@@ -100,6 +126,13 @@ public class CameraActivity extends AppCompatActivity {
             // Here we ensure that we don't exceed the maximum zoom ratio provided by the camera.
             zoomRatio = Math.min(zoomRatio, maxZoom);
 
+            if (roiSelector != null && roiSelector.getMode() != RoiSelector.Mode.FULL_FRAME) {
+                // ROI modes zoom the model input only; the preview and the analysis stream stay at
+                // full field of view so boxes outside the crop can still be drawn.
+                roiSelector.setZoom(zoomRatio);
+                zoomRatio = 1F;
+            }
+
             int cropW = (int) (m.width() / zoomRatio);
             int cropH = (int) (m.height() / zoomRatio);
             int cropX = (m.width() - cropW) / 2;
@@ -125,6 +158,10 @@ public class CameraActivity extends AppCompatActivity {
         textureView = findViewById(R.id.textureView);
         textureView.setSurfaceTextureListener(surfaceTextureListener);
 
+        overlayView = findViewById(R.id.overlay);
+        surfaceOverlayView = findViewById(R.id.surface_overlay);
+        setUpDetector();
+
         // Initialize zoom slider manager
         zoomSliderManager = new SliderManager(
                 findViewById(R.id.zoom_seekbar),
@@ -147,6 +184,165 @@ public class CameraActivity extends AppCompatActivity {
         flashButton = findViewById(R.id.button_flash);
         cameraManager = (CameraManager) getSystemService(Context.CAMERA_SERVICE);
         flashButton.setOnClickListener(v -> toggleFlashLight());
+
+        roiButton = findViewById(R.id.button_roi);
+        roiButton.setOnClickListener(v -> cycleRoiMode());
+        updateRoiButton();
+
+        hudButton = findViewById(R.id.button_hud);
+        hudButton.setOnClickListener(v -> {
+            overlayView.setHudEnabled(!overlayView.isHudEnabled());
+            hudButton.setText(overlayView.isHudEnabled() ? "HUD: ON" : "HUD: OFF");
+        });
+
+        overlayBackendButton = findViewById(R.id.button_overlay_backend);
+        overlayBackendButton.setOnClickListener(v -> toggleOverlayBackend());
+    }
+
+    // The HUD stays on OverlayView, which shows overlay_draw and overlay_surface side by side.
+    private void toggleOverlayBackend() {
+        isSurfaceOverlay = !isSurfaceOverlay;
+        // A gone SurfaceView has no surface, so its render thread only runs while selected.
+        surfaceOverlayView.setVisibility(isSurfaceOverlay ? View.VISIBLE : View.GONE);
+        resultDispatcher.setRenderer(isSurfaceOverlay ? surfaceOverlayView : overlayView);
+        overlayBackendButton.setText(isSurfaceOverlay ? "Overlay: SURFACE" : "Overlay: VIEW");
+    }
+
+    private void cycleRoiMode() {
+        if (roiSelector == null) return;
+        RoiSelector.Mode[] modes = RoiSelector.Mode.values();
+        roiSelector.setMode(modes[(roiSelector.getMode().ordinal() + 1) % modes.length]);
+        updateRoiButton();
+        // Re-applies the slider to either the camera crop region or the ROI.
+        if (cameraDevice != null && cameraCaptureSession != null) {
+            updateCameraZoom(zoomSliderManager.getValue());
+        }
+    }
+
+    private void updateRoiButton() {
+        if (roiSelector == null) {
+            roiButton.setEnabled(false);
+            return;
+        }
+        roiButton.setText("ROI: " + roiSelector.getMode());
+    }
+
+    private void setUpDetector() {
+        resultDispatcher = new ResultDispatcher(overlayView);
+        detector = new Detector(getApplicationContext(), Constants.MODEL_PATH, Constants.LABELS_PATH,
+                resultDispatcher);
+        int cores = Runtime.getRuntime().availableProcessors();
+        governor = new InferenceGovernor(TARGET_FRAME_MILLIS, detector.getNumThreads(), 1, cores, MAX_FRAME_STRIDE);
+        detector.setGovernor(governor);
+        // Full inference on every fifth frame or on scene motion; the tracker fills in between.
+        detector.setTracking(new ObjectTracker(), new KeyframeScheduler(KEYFRAME_INTERVAL, KEYFRAME_MOTION_THRESHOLD));
+        roiSelector = new RoiSelector(ROI_FULL_FRAME_INTERVAL, ROI_MAX_ZOOM);
+        detector.setRoiSelector(roiSelector);
+        overlayView.setMetrics(detector.getMetrics());
+        surfaceOverlayView.setMetrics(detector.getMetrics());
+        frameSource = createFrameSource();
+        // Mapping the model, building the interpreter and the warm-up run take hundreds of
+        // milliseconds; the camera preview opens meanwhile and frames are dropped until ready.
+        setupExecutor = Executors.newSingleThreadExecutor();
+        detector.setupAsync(setupExecutor).whenComplete((ready, error) -> {
+            // Anything but an IOException (a bad model, a failed resize or warm-up) ends up here.
+            if (error != null) {
+                Log.e("CameraActivity", "Detector setup failed", error);
+            }
+            runOnUiThread(() -> onDetectorReady(error == null && ready));
+        });
+    }
+
+    private void onDetectorReady(boolean ready) {
+        if (isDestroyed()) return;
+        if (!ready) {
+            showToast("Detector setup failed");
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Under thermal pressure extra interpreter threads mostly add heat, so cap them.
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            thermalListener = status -> governor.setMaxThreads(
+                    status >= PowerManager.THERMAL_STATUS_MODERATE ? THROTTLED_MAX_THREADS : cores);
+            powerManager.addThermalStatusListener(thermalListener);
+        }
+        overlayView.setLabels(detector.getLabels());
+        surfaceOverlayView.setLabels(detector.getLabels());
+        // Frames are released once converted into a slot, or when a newer one replaces them.
+        detectionPipeline = new DetectionPipeline<>("Detection", new DetectionPipeline.Stages<SourceFrame, TensorSlot>() {
+            @Override
+            public TensorSlot createSlot() {
+                return detector.createSlot();
+            }
+
+            @Override
+            public void preprocess(SourceFrame frame, TensorSlot slot) {
+                frame.preprocess(detector, slot);
+            }
+
+            @Override
+            public void infer(TensorSlot slot) {
+                detector.infer(slot);
+            }
+
+            @Override
+            public void postprocess(TensorSlot slot) {
+                detector.postprocess(slot);
+            }
+        }, SourceFrame::release);
+        detectionPipeline.start();
+        try {
+            frameSource.start(new PipelineFeeder(detectionPipeline, governor, frameSource.isLossless(),
+                    this::onFrameSourceEnd));
+        } catch (IOException e) {
+            Log.e("CameraActivity", "Cannot start frame source", e);
+        }
+    }
+
+    // Replays a recording instead of opening the camera, e.g.
+    //   adb shell am start -n com.example.myapplication/.CameraActivity --es replay_path /sdcard/clip.yuv \
+    //       --ei replay_width 1280 --ei replay_height 720 --ef replay_fps 30
+    // replay_path may also be a directory of images or a video file; without replay_fps, or with
+    // 0, frames are replayed as fast as the pipeline takes them.
+    private FrameSource createFrameSource() {
+        String replayPath = getIntent() == null ? null : getIntent().getStringExtra(EXTRA_REPLAY_PATH);
+        if (replayPath != null) {
+            try {
+                return ReplayFrameSource.open(new File(replayPath), getIntent().getFloatExtra(EXTRA_REPLAY_FPS, 0F),
+                        getIntent().getIntExtra(EXTRA_REPLAY_WIDTH, 0), getIntent().getIntExtra(EXTRA_REPLAY_HEIGHT, 0));
+            } catch (IOException e) {
+                Log.e("CameraActivity", "Cannot replay " + replayPath, e);
+                showToast("Cannot replay " + replayPath);
+            }
+        }
+        cameraFrameSource = new CameraFrameSource(MAX_READER_IMAGES);
+        return cameraFrameSource;
+    }
+
+    private void onFrameSourceEnd() {
+        // For a replay the per-stage latencies are the result of the run.
+        for (String line : detector.getMetrics().snapshot().format()) {
+            Log.i("CameraActivity", line);
+        }
+        FrameSource source = frameSource;
+        if (source instanceof ReplayFrameSource) {
+            ReplayFrameSource replay = (ReplayFrameSource) source;
+            showToast(String.format(Locale.ROOT, "Replay finished: %d frames at %.1f fps",
+                    replay.getEmittedCount(), replay.getFramesPerSecond()));
+        }
+    }
+
+    // The camera may open before setup has read the tensor shape.
+    private int tensorSide() {
+        if (detectionPipeline == null) return DEFAULT_TENSOR_SIDE;
+        return Math.max(detector.getTensorWidth(), detector.getTensorHeight());
+    }
+
+    private void closeImageReader() {
+        if (cameraFrameSource != null) {
+            cameraFrameSource.closeReader();
+        }
     }
 
     private void handleSliderChange(int value, SliderManager.SliderType type) {
@@ -202,7 +398,6 @@ public class CameraActivity extends AppCompatActivity {
 
         @Override
         public void onSurfaceTextureUpdated(SurfaceTexture surface) {
-            // Optional implementation
         }
     };
 
@@ -276,11 +471,13 @@ public class CameraActivity extends AppCompatActivity {
             cameraDevice.close();
             cameraDevice = null;
         }
+        closeImageReader();
     }
 
     private void openCamera(String cameraId) {
         CameraManager cameraManager = (CameraManager) getSystemService(Context.CAMERA_SERVICE);
-        if (cameraId == null) return;
+        // Replays leave the camera closed.
+        if (cameraId == null || cameraFrameSource == null) return;
 
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA}, 101);
@@ -302,6 +499,8 @@ public class CameraActivity extends AppCompatActivity {
                         // Get display rotation and sensor orientation to determine if we are in portrait mode
                         int displayRotation = getWindowManager().getDefaultDisplay().getRotation();
                         int sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+                        Integer timestampSource = characteristics.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+                        Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
                         boolean isPortrait = (displayRotation == Surface.ROTATION_0 || displayRotation == Surface.ROTATION_180);
 
                         // Swap width and height if we are in portrait mode
@@ -323,10 +522,23 @@ public class CameraActivity extends AppCompatActivity {
                         texture.setDefaultBufferSize(optimalSize.getWidth(), optimalSize.getHeight());
                         Surface surface = new Surface(texture);
 
+                        // The detector stream keeps the preview's aspect ratio so boxes line up with
+                        // the overlay; the rotation turns sensor frames upright for the display, and
+                        // front camera frames are mirrored like its preview.
+                        Size analysisSize = chooseAnalysisSize(map.getOutputSizes(ImageFormat.YUV_420_888), optimalSize,
+                                // Larger than the tensor so ROI crops still have full detail.
+                                tensorSide() * ROI_ANALYSIS_SCALE);
+                        Surface analysisSurface = cameraFrameSource.configure(analysisSize.getWidth(), analysisSize.getHeight(),
+                                frameRotation(sensorOrientation, displayRotation),
+                                facing != null && facing == CameraCharacteristics.LENS_FACING_FRONT,
+                                timestampSource != null
+                                        && timestampSource == CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME);
+
                         captureRequestBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
                         captureRequestBuilder.addTarget(surface);
+                        captureRequestBuilder.addTarget(analysisSurface);
 
-                        cameraDevice.createCaptureSession(Collections.singletonList(surface),
+                        cameraDevice.createCaptureSession(Arrays.asList(surface, analysisSurface),
                                 new CameraCaptureSession.StateCallback() {
 
                                     @Override
@@ -394,6 +606,41 @@ public class CameraActivity extends AppCompatActivity {
         }
     }
 
+    // Smallest YUV size with the preview's aspect ratio whose short side covers the model input.
+    private Size chooseAnalysisSize(Size[] choices, Size previewSize, int minSide) {
+        Size best = null;
+        for (Size option : choices) {
+            if ((long) option.getWidth() * previewSize.getHeight() != (long) option.getHeight() * previewSize.getWidth()) continue;
+            if (Math.min(option.getWidth(), option.getHeight()) < minSide) continue;
+            if (best == null || (long) option.getWidth() * option.getHeight() < (long) best.getWidth() * best.getHeight()) {
+                best = option;
+            }
+        }
+        return best != null ? best : previewSize;
+    }
+
+    private int frameRotation(int sensorOrientation, int displayRotation) {
+        int displayDegrees;
+        switch (displayRotation) {
+            case Surface.ROTATION_90:
+                displayDegrees = 90;
+                break;
+            case Surface.ROTATION_180:
+                displayDegrees = 180;
+                break;
+            case Surface.ROTATION_270:
+                displayDegrees = 270;
+                break;
+            default:
+                displayDegrees = 0;
+                break;
+        }
+        if (isFrontCamera) {
+            return (sensorOrientation + displayDegrees) % 360;
+        }
+        return (sensorOrientation - displayDegrees + 360) % 360;
+    }
+
     private void updateCameraPreviewSession() {
         if (null == cameraDevice || isSwitchingCamera) {
             // Skip updating the camera preview session if the camera is null or we are currently switching cameras
@@ -446,6 +693,38 @@ public class CameraActivity extends AppCompatActivity {
             cameraDevice.close();
             cameraDevice = null;
         }
+        closeImageReader();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (frameSource != null) {
+            frameSource.stop();
+            frameSource = null;
+        }
+        if (detectionPipeline != null) {
+            detectionPipeline.stop();
+            try {
+                detectionPipeline.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            detectionPipeline = null;
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ((PowerManager) getSystemService(Context.POWER_SERVICE)).removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+        if (setupExecutor != null) {
+            // Queued behind a setup that may still be running, so the interpreter is never
+            // closed under it.
+            setupExecutor.execute(detector::clear);
+            setupExecutor.shutdown();
+            setupExecutor = null;
+        } else if (detector != null) {
+            detector.clear();
+        }
     }
 
     @Override
@@ -459,4 +738,21 @@ public class CameraActivity extends AppCompatActivity {
             }
         }
     }
+
+    // One image in the mailbox, one being preprocessed and one being written by the camera.
+    private static final int MAX_READER_IMAGES = 3;
+    // Budget for one inference: a 30 fps camera delivers a frame every 33 ms.
+    private static final float TARGET_FRAME_MILLIS = 33F;
+    private static final int MAX_FRAME_STRIDE = 4;
+    private static final int THROTTLED_MAX_THREADS = 2;
+    private static final int KEYFRAME_INTERVAL = 5;
+    private static final float KEYFRAME_MOTION_THRESHOLD = 0.06F;
+    private static final int ROI_FULL_FRAME_INTERVAL = 10;
+    private static final float ROI_MAX_ZOOM = 4F;
+    private static final int ROI_ANALYSIS_SCALE = 2;
+    private static final int DEFAULT_TENSOR_SIDE = 640;
+    public static final String EXTRA_REPLAY_PATH = "replay_path";
+    public static final String EXTRA_REPLAY_FPS = "replay_fps";
+    public static final String EXTRA_REPLAY_WIDTH = "replay_width";
+    public static final String EXTRA_REPLAY_HEIGHT = "replay_height";
 }
@@ -0,0 +1,122 @@
+package com.example.myapplication;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Surface;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Frames from a Camera2 YUV_420_888 stream. The activity owns the camera device and session;
+// this owns the ImageReader whose surface it adds to the session, and hands every new image to
+// the listener wrapped in a pooled frame. Images arriving before start() are dropped.
+public class CameraFrameSource implements FrameSource {
+    private final int maxImages;
+    private final ArrayBlockingQueue<CameraFrame> free;
+    private HandlerThread thread;
+    private Handler handler;
+    private ImageReader reader;
+    private volatile Listener listener;
+    private volatile int rotationDegrees;
+    private volatile boolean mirrored;
+    private volatile boolean realtimeTimestamps;
+
+    public CameraFrameSource(int maxImages) {
+        this.maxImages = maxImages;
+        // The reader never has more than maxImages open, so this many wrappers always suffice.
+        this.free = new ArrayBlockingQueue<>(maxImages);
+        for (int i = 0; i < maxImages; i++) {
+            free.add(new CameraFrame());
+        }
+    }
+
+    // Recreates the reader for a newly opened camera and returns the surface to stream into.
+    // mirrored flips upright frames horizontally to match a mirrored (front camera) preview;
+    // realtimeTimestamps tells whether image timestamps share SystemClock.elapsedRealtimeNanos().
+    public Surface configure(int width, int height, int rotationDegrees, boolean mirrored, boolean realtimeTimestamps) {
+        closeReader();
+        if (thread == null) {
+            thread = new HandlerThread("ImageReader");
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        this.rotationDegrees = rotationDegrees;
+        this.mirrored = mirrored;
+        this.realtimeTimestamps = realtimeTimestamps;
+        reader = ImageReader.newInstance(width, height, ImageFormat.YUV_420_888, maxImages);
+        reader.setOnImageAvailableListener(this::onImageAvailable, handler);
+        return reader.getSurface();
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Called when the camera closes; the thread is kept for the next configure().
+    public void closeReader() {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    @Override
+    public void stop() {
+        Listener stopped = listener;
+        listener = null;
+        closeReader();
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+            handler = null;
+        }
+        if (stopped != null) {
+            stopped.onEnd();
+        }
+    }
+
+    private void onImageAvailable(ImageReader imageReader) {
+        Image image = imageReader.acquireLatestImage();
+        if (image == null) return;
+        Listener current = listener;
+        CameraFrame frame = current == null ? null : free.poll();
+        if (frame == null) {
+            image.close();
+            return;
+        }
+        frame.image = image;
+        frame.rotationDegrees = rotationDegrees;
+        frame.mirrored = mirrored;
+        frame.timestampNanos = realtimeTimestamps ? image.getTimestamp() : 0;
+        current.onFrame(frame);
+    }
+
+    private class CameraFrame implements SourceFrame {
+        private final YuvFrame yuvFrame = new YuvFrame();
+        private Image image;
+        private int rotationDegrees;
+        private boolean mirrored;
+        private long timestampNanos;
+
+        @Override
+        public void preprocess(Detector detector, TensorSlot slot) {
+            Image.Plane[] planes = image.getPlanes();
+            yuvFrame.set(planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[0].getRowStride(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                    image.getWidth(), image.getHeight(), rotationDegrees);
+            yuvFrame.setMirrored(mirrored);
+            yuvFrame.setTimestampNanos(timestampNanos);
+            detector.preprocess(yuvFrame, slot);
+        }
+
+        @Override
+        public void release() {
+            image.close();
+            image = null;
+            free.offer(this);
+        }
+    }
+}
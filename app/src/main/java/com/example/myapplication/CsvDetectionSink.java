@@ -0,0 +1,58 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// One line per detection: frame,timestamp_us,class,confidence,x1,y1,x2,y2 with normalized
+// coordinates. Lines are appended as frames complete, so nothing accumulates in memory.
+public class CsvDetectionSink implements DetectionSink {
+    private final Writer writer;
+    private final StringBuilder line;
+
+    public CsvDetectionSink(Writer writer) {
+        this.writer = writer;
+        this.line = new StringBuilder();
+    }
+
+    public void writeHeader() throws IOException {
+        writer.write("frame,timestamp_us,class,confidence,x1,y1,x2,y2\n");
+    }
+
+    @Override
+    public void write(long frameIndex, long timestampUs, DetectionBuffer detections) throws IOException {
+        for (int i = 0; i < detections.size(); i++) {
+            line.setLength(0);
+            line.append(frameIndex).append(',').append(timestampUs).append(',').append(detections.getCls(i));
+            appendFixed(detections.getCnf(i));
+            appendFixed(detections.getX1(i));
+            appendFixed(detections.getY1(i));
+            appendFixed(detections.getX2(i));
+            appendFixed(detections.getY2(i));
+            line.append('\n');
+            writer.append(line);
+        }
+    }
+
+    // Four decimals keep boxes within half a pixel at 4K without Float.toString's long tails.
+    private void appendFixed(float value) {
+        line.append(',');
+        int scaled = Math.round(value * SCALE);
+        if (scaled < 0) {
+            line.append('-');
+            scaled = -scaled;
+        }
+        line.append(scaled / SCALE).append('.');
+        int fraction = scaled % SCALE;
+        for (int digit = SCALE / 10; digit > 1 && fraction < digit; digit /= 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static final int SCALE = 10000;
+}
@@ -0,0 +1,53 @@
+package com.example.myapplication;
+
+// One decoded frame as ARGB pixels. FrameDecoder implementations fill a frame in place and the
+// pixel array only grows, so a handful of frames can be recycled for a whole clip or folder.
+public class DecodedFrame {
+    private int[] pixels;
+    private int width;
+    private int height;
+    private long index;
+    private long timestampUs;
+
+    public DecodedFrame() {
+        this.pixels = new int[0];
+    }
+
+    // Makes room for width * height pixels and returns the array to write them into.
+    public int[] setSize(int width, int height) {
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        this.width = width;
+        this.height = height;
+        return pixels;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public long getTimestampUs() {
+        return timestampUs;
+    }
+
+    public void setTimestampUs(long timestampUs) {
+        this.timestampUs = timestampUs;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Structure-of-arrays store for detections. Instances are reused across frames,
+// so readers that outlive a callback must copyFrom() into their own buffer.
+public class DetectionBuffer {
+    private float[] x1;
+    private float[] y1;
+    private float[] x2;
+    private float[] y2;
+    private float[] cx;
+    private float[] cy;
+    private float[] w;
+    private float[] h;
+    private float[] cnf;
+    private int[] cls;
+    private String[] clsName;
+    private int[] trackId;
+    private int count;
+
+    public DetectionBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DetectionBuffer(int capacity) {
+        allocate(Math.max(1, capacity));
+        this.count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int capacity() {
+        return cnf.length;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int add(float x1, float y1, float x2, float y2, float cx, float cy, float w, float h, float cnf, int cls, String clsName) {
+        if (count == capacity()) {
+            grow(count + 1);
+        }
+        int i = count++;
+        this.x1[i] = x1;
+        this.y1[i] = y1;
+        this.x2[i] = x2;
+        this.y2[i] = y2;
+        this.cx[i] = cx;
+        this.cy[i] = cy;
+        this.w[i] = w;
+        this.h[i] = h;
+        this.cnf[i] = cnf;
+        this.cls[i] = cls;
+        this.clsName[i] = clsName;
+        this.trackId[i] = BoundingBox.NO_TRACK;
+        return i;
+    }
+
+    public int add(DetectionBuffer source, int index) {
+        int i = add(source.x1[index], source.y1[index], source.x2[index], source.y2[index],
+                source.cx[index], source.cy[index], source.w[index], source.h[index],
+                source.cnf[index], source.cls[index], source.clsName[index]);
+        trackId[i] = source.trackId[index];
+        return i;
+    }
+
+    public void copyFrom(DetectionBuffer source) {
+        if (source == this) return;
+        int n = source.count;
+        if (capacity() < n) {
+            grow(n);
+        }
+        System.arraycopy(source.x1, 0, x1, 0, n);
+        System.arraycopy(source.y1, 0, y1, 0, n);
+        System.arraycopy(source.x2, 0, x2, 0, n);
+        System.arraycopy(source.y2, 0, y2, 0, n);
+        System.arraycopy(source.cx, 0, cx, 0, n);
+        System.arraycopy(source.cy, 0, cy, 0, n);
+        System.arraycopy(source.w, 0, w, 0, n);
+        System.arraycopy(source.h, 0, h, 0, n);
+        System.arraycopy(source.cnf, 0, cnf, 0, n);
+        System.arraycopy(source.cls, 0, cls, 0, n);
+        System.arraycopy(source.clsName, 0, clsName, 0, n);
+        System.arraycopy(source.trackId, 0, trackId, 0, n);
+        count = n;
+    }
+
+    public void setBoundingBoxes(List<BoundingBox> boxes) {
+        clear();
+        for (BoundingBox box : boxes) {
+            int i = add(box.getX1(), box.getY1(), box.getX2(), box.getY2(), box.getCx(), box.getCy(),
+                    box.getW(), box.getH(), box.getCnf(), box.getCls(), box.getClsName());
+            trackId[i] = box.getTrackId();
+        }
+    }
+
+    public List<BoundingBox> toBoundingBoxes() {
+        List<BoundingBox> boxes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BoundingBox box = new BoundingBox(x1[i], y1[i], x2[i], y2[i], cx[i], cy[i], w[i], h[i], cnf[i], cls[i], clsName[i]);
+            box.setTrackId(trackId[i]);
+            boxes.add(box);
+        }
+        return boxes;
+    }
+
+    // Maps every box from a sub-region back to the enclosing frame: x' = x * scaleX + offsetX.
+    public void transform(float scaleX, float scaleY, float offsetX, float offsetY) {
+        for (int i = 0; i < count; i++) {
+            x1[i] = x1[i] * scaleX + offsetX;
+            x2[i] = x2[i] * scaleX + offsetX;
+            cx[i] = cx[i] * scaleX + offsetX;
+            w[i] = w[i] * scaleX;
+            y1[i] = y1[i] * scaleY + offsetY;
+            y2[i] = y2[i] * scaleY + offsetY;
+            cy[i] = cy[i] * scaleY + offsetY;
+            h[i] = h[i] * scaleY;
+        }
+    }
+
+    public float getX1(int i) {
+        return x1[i];
+    }
+
+    public float getY1(int i) {
+        return y1[i];
+    }
+
+    public float getX2(int i) {
+        return x2[i];
+    }
+
+    public float getY2(int i) {
+        return y2[i];
+    }
+
+    public float getCx(int i) {
+        return cx[i];
+    }
+
+    public float getCy(int i) {
+        return cy[i];
+    }
+
+    public float getW(int i) {
+        return w[i];
+    }
+
+    public float getH(int i) {
+        return h[i];
+    }
+
+    public float getCnf(int i) {
+        return cnf[i];
+    }
+
+    public void setCnf(int i, float cnf) {
+        this.cnf[i] = cnf;
+    }
+
+    public int getCls(int i) {
+        return cls[i];
+    }
+
+    public String getClsName(int i) {
+        return clsName[i];
+    }
+
+    public int getTrackId(int i) {
+        return trackId[i];
+    }
+
+    public void setTrackId(int i, int trackId) {
+        this.trackId[i] = trackId;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, capacity() * 2);
+        float[] oldX1 = x1, oldY1 = y1, oldX2 = x2, oldY2 = y2;
+        float[] oldCx = cx, oldCy = cy, oldW = w, oldH = h, oldCnf = cnf;
+        int[] oldCls = cls;
+        String[] oldClsName = clsName;
+        int[] oldTrackId = trackId;
+        allocate(capacity);
+        System.arraycopy(oldX1, 0, x1, 0, count);
+        System.arraycopy(oldY1, 0, y1, 0, count);
+        System.arraycopy(oldX2, 0, x2, 0, count);
+        System.arraycopy(oldY2, 0, y2, 0, count);
+        System.arraycopy(oldCx, 0, cx, 0, count);
+        System.arraycopy(oldCy, 0, cy, 0, count);
+        System.arraycopy(oldW, 0, w, 0, count);
+        System.arraycopy(oldH, 0, h, 0, count);
+        System.arraycopy(oldCnf, 0, cnf, 0, count);
+        System.arraycopy(oldCls, 0, cls, 0, count);
+        System.arraycopy(oldClsName, 0, clsName, 0, count);
+        System.arraycopy(oldTrackId, 0, trackId, 0, count);
+    }
+
+    private void allocate(int capacity) {
+        x1 = new float[capacity];
+        y1 = new float[capacity];
+        x2 = new float[capacity];
+        y2 = new float[capacity];
+        cx = new float[capacity];
+        cy = new float[capacity];
+        w = new float[capacity];
+        h = new float[capacity];
+        cnf = new float[capacity];
+        cls = new int[capacity];
+        clsName = new String[capacity];
+        trackId = new int[capacity];
+    }
+
+    private static final int DEFAULT_CAPACITY = 64;
+}
@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+// Layout shared by DetectionLogWriter and DetectionLogReader. All values are little-endian.
+//
+//   header      magic "DLOG", version (short), flags (short), record size (int),
+//               data offset (int), record count (long), class count (int)
+//   dictionary  per class: UTF-8 byte length (short) and the name, in class-id order
+//   records     from the data offset, recordSize bytes each:
+//               timestamp us (long), frame id (int), class id (short), then confidence and
+//               x1/y1/x2/y2 as half floats (24 bytes) or as floats after two padding bytes (36)
+//
+// The record count is updated after each frame's records are written, so a log cut short by
+// a crash still reads back up to the last complete frame.
+final class DetectionLog {
+    static final int MAGIC = 0x474F4C44;
+    static final short VERSION = 1;
+    static final short FLAG_HALF_FLOAT = 1;
+    static final int FLAGS_OFFSET = 6;
+    static final int RECORD_SIZE_OFFSET = 8;
+    static final int DATA_OFFSET_OFFSET = 12;
+    static final int RECORD_COUNT_OFFSET = 16;
+    static final int CLASS_COUNT_OFFSET = 24;
+    static final int DICTIONARY_OFFSET = 28;
+    static final int HALF_RECORD_SIZE = 24;
+    static final int FLOAT_RECORD_SIZE = 36;
+    static final int FRAME_OFFSET = 8;
+    static final int CLASS_OFFSET = 12;
+    static final int VALUES_OFFSET = 14;
+    static final int FLOAT_VALUES_OFFSET = 16;
+
+    private DetectionLog() {
+    }
+
+    // IEEE 754 binary16, rounding to nearest even. Normalized coordinates keep about three
+    // significant digits, under a pixel up to 2K and about two pixels at 4K.
+    static short toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+        if (exponent == 0xFF) {
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1F) {
+            return (short) (sign | 0x7C00);
+        }
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) return (short) sign;
+            // Subnormal: shift the mantissa, including its implicit leading one, into place.
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) half++;
+            return (short) (sign | half);
+        }
+        int half = (halfExponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1FFF;
+        // A carry out of the mantissa correctly bumps the exponent.
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) half++;
+        return (short) (sign | half);
+    }
+
+    static float fromHalf(short half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            if (mantissa == 0) return Float.intBitsToFloat(sign);
+            float value = mantissa / 16777216F;
+            return sign == 0 ? value : -value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
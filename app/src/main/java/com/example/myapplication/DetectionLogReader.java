@@ -0,0 +1,150 @@
+package com.example.myapplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Reads a detection log (see DetectionLog) straight out of a read-only mapping: records are
+// decoded field by field on access and nothing is copied onto the heap, so scanning millions
+// of detections costs one pass over the mapped pages.
+public class DetectionLogReader {
+    private final MappedByteBuffer buffer;
+    private final boolean halfFloat;
+    private final int recordSize;
+    private final int dataOffset;
+    private final int size;
+    private final List<String> labels;
+
+    public DetectionLogReader(File path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < DetectionLog.DICTIONARY_OFFSET || buffer.getInt(0) != DetectionLog.MAGIC) {
+            throw new IOException("Not a detection log: " + path);
+        }
+        if (buffer.getShort(4) != DetectionLog.VERSION) {
+            throw new IOException("Unsupported detection log version " + buffer.getShort(4) + ": " + path);
+        }
+        halfFloat = (buffer.getShort(DetectionLog.FLAGS_OFFSET) & DetectionLog.FLAG_HALF_FLOAT) != 0;
+        recordSize = buffer.getInt(DetectionLog.RECORD_SIZE_OFFSET);
+        dataOffset = buffer.getInt(DetectionLog.DATA_OFFSET_OFFSET);
+        // A log whose writer died keeps its pre-grown tail; trust the count only as far as the file goes.
+        long available = (buffer.capacity() - dataOffset) / recordSize;
+        size = (int) Math.min(available, buffer.getLong(DetectionLog.RECORD_COUNT_OFFSET));
+        int classCount = buffer.getInt(DetectionLog.CLASS_COUNT_OFFSET);
+        List<String> names = new ArrayList<>(classCount);
+        int position = DetectionLog.DICTIONARY_OFFSET;
+        for (int i = 0; i < classCount; i++) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            byte[] name = new byte[length];
+            for (int j = 0; j < length; j++) {
+                name[j] = buffer.get(position + 2 + j);
+            }
+            names.add(new String(name, StandardCharsets.UTF_8));
+            position += 2 + length;
+        }
+        labels = Collections.unmodifiableList(names);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    // Class name for a class id, or null if the id is outside the dictionary.
+    public String getLabel(int classId) {
+        return classId >= 0 && classId < labels.size() ? labels.get(classId) : null;
+    }
+
+    public long getTimestampUs(int i) {
+        return buffer.getLong(offset(i));
+    }
+
+    public int getFrame(int i) {
+        return buffer.getInt(offset(i) + DetectionLog.FRAME_OFFSET);
+    }
+
+    public int getClassId(int i) {
+        return buffer.getShort(offset(i) + DetectionLog.CLASS_OFFSET);
+    }
+
+    public float getConfidence(int i) {
+        return value(i, 0);
+    }
+
+    public float getX1(int i) {
+        return value(i, 1);
+    }
+
+    public float getY1(int i) {
+        return value(i, 2);
+    }
+
+    public float getX2(int i) {
+        return value(i, 3);
+    }
+
+    public float getY2(int i) {
+        return value(i, 4);
+    }
+
+    // Detections per class id over the whole log.
+    public long[] countByClass() {
+        return countByClass(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // Detections per class id with fromUs <= timestamp < toUs, in a single pass.
+    public long[] countByClass(long fromUs, long toUs) {
+        long[] counts = new long[labels.size()];
+        for (int i = 0, position = dataOffset; i < size; i++, position += recordSize) {
+            long timestamp = buffer.getLong(position);
+            if (timestamp < fromUs || timestamp >= toUs) continue;
+            int classId = buffer.getShort(position + DetectionLog.CLASS_OFFSET);
+            if (classId >= counts.length) {
+                counts = Arrays.copyOf(counts, classId + 1);
+            }
+            if (classId >= 0) counts[classId]++;
+        }
+        return counts;
+    }
+
+    // Index of the first record at or after timestampUs, for logs written in time order (as
+    // OfflineProcessor writes them); size() if there is none.
+    public int firstAtOrAfter(long timestampUs) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getTimestampUs(mid) < timestampUs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int offset(int i) {
+        return dataOffset + i * recordSize;
+    }
+
+    private float value(int i, int field) {
+        if (halfFloat) {
+            return DetectionLog.fromHalf(buffer.getShort(offset(i) + DetectionLog.VALUES_OFFSET + 2 * field));
+        }
+        return buffer.getFloat(offset(i) + DetectionLog.FLOAT_VALUES_OFFSET + 4 * field);
+    }
+}
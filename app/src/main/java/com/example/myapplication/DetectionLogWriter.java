@@ -0,0 +1,122 @@
+package com.example.myapplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Appends fixed-size detection records (see DetectionLog) through a memory-mapped file. The
+// file is grown ahead of the writes in large steps, so appending is a handful of puts into
+// the mapping with no system call per frame; close() trims it to the records written.
+public class DetectionLogWriter implements DetectionSink {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean halfFloat;
+    private final int recordSize;
+    private final int dataOffset;
+    private MappedByteBuffer buffer;
+    private long recordCount;
+
+    public DetectionLogWriter(File path, List<String> labels) throws IOException {
+        this(path, labels, true);
+    }
+
+    // Half floats halve the record size; full floats keep exact model output.
+    public DetectionLogWriter(File path, List<String> labels, boolean halfFloat) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        this.halfFloat = halfFloat;
+        this.recordSize = halfFloat ? DetectionLog.HALF_RECORD_SIZE : DetectionLog.FLOAT_RECORD_SIZE;
+        int dictionaryBytes = 0;
+        byte[][] names = new byte[labels.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = labels.get(i).getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += 2 + names[i].length;
+        }
+        // Records start on an 8-byte boundary.
+        this.dataOffset = (DetectionLog.DICTIONARY_OFFSET + dictionaryBytes + 7) & ~7;
+        file.setLength(0);
+        map(dataOffset + GROW_BYTES);
+        buffer.putInt(0, DetectionLog.MAGIC);
+        buffer.putShort(4, DetectionLog.VERSION);
+        buffer.putShort(DetectionLog.FLAGS_OFFSET, halfFloat ? DetectionLog.FLAG_HALF_FLOAT : 0);
+        buffer.putInt(DetectionLog.RECORD_SIZE_OFFSET, recordSize);
+        buffer.putInt(DetectionLog.DATA_OFFSET_OFFSET, dataOffset);
+        buffer.putLong(DetectionLog.RECORD_COUNT_OFFSET, 0);
+        buffer.putInt(DetectionLog.CLASS_COUNT_OFFSET, names.length);
+        buffer.position(DetectionLog.DICTIONARY_OFFSET);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+        this.recordCount = 0;
+    }
+
+    @Override
+    public void write(long frameIndex, long timestampUs, DetectionBuffer detections) throws IOException {
+        int count = detections.size();
+        if (count == 0) return;
+        long end = dataOffset + (recordCount + count) * recordSize;
+        if (end > buffer.capacity()) {
+            map(Math.max(end, buffer.capacity() + (long) buffer.capacity() / 2 + GROW_BYTES));
+        }
+        int position = (int) (dataOffset + recordCount * recordSize);
+        for (int i = 0; i < count; i++, position += recordSize) {
+            buffer.putLong(position, timestampUs);
+            buffer.putInt(position + DetectionLog.FRAME_OFFSET, (int) frameIndex);
+            buffer.putShort(position + DetectionLog.CLASS_OFFSET, (short) detections.getCls(i));
+            if (halfFloat) {
+                int values = position + DetectionLog.VALUES_OFFSET;
+                buffer.putShort(values, DetectionLog.toHalf(detections.getCnf(i)));
+                buffer.putShort(values + 2, DetectionLog.toHalf(detections.getX1(i)));
+                buffer.putShort(values + 4, DetectionLog.toHalf(detections.getY1(i)));
+                buffer.putShort(values + 6, DetectionLog.toHalf(detections.getX2(i)));
+                buffer.putShort(values + 8, DetectionLog.toHalf(detections.getY2(i)));
+            } else {
+                int values = position + DetectionLog.FLOAT_VALUES_OFFSET;
+                buffer.putFloat(values, detections.getCnf(i));
+                buffer.putFloat(values + 4, detections.getX1(i));
+                buffer.putFloat(values + 8, detections.getY1(i));
+                buffer.putFloat(values + 12, detections.getX2(i));
+                buffer.putFloat(values + 16, detections.getY2(i));
+            }
+        }
+        recordCount += count;
+        buffer.putLong(DetectionLog.RECORD_COUNT_OFFSET, recordCount);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    // Flushes the mapping to storage without closing.
+    public void flush() {
+        buffer.force();
+    }
+
+    private void map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Detection log larger than 2 GB");
+        }
+        file.setLength(size);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        // The mapping is only released when collected; truncating under it is safe on Linux
+        // as long as nothing touches the cut-off pages, and nothing does after this point.
+        buffer = null;
+        file.setLength(dataOffset + recordCount * recordSize);
+        channel.close();
+        file.close();
+    }
+
+    private static final int GROW_BYTES = 1 << 20;
+}
@@ -0,0 +1,154 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Splits detection into preprocess, infer and postprocess stages, each on its own thread, so
+// frame N + 1 is converted while frame N is in the interpreter and frame N - 1 is decoded.
+// Frames carry their tensors in slots that move through the stages in FIFO order, which keeps
+// listener callbacks in submission order. With three slots every stage can be busy at once;
+// when all slots are in flight the preprocess stage waits and newer frames replace older ones
+// in the mailbox, so a slow stage drops stale frames instead of queueing them.
+public class DetectionPipeline<T, S> {
+    private final Stages<T, S> stages;
+    private final FrameMailbox<T> mailbox;
+    private final FrameMailbox.Releaser<T> releaser;
+    private final ArrayBlockingQueue<S> freeSlots;
+    private final ArrayBlockingQueue<S> inferQueue;
+    private final ArrayBlockingQueue<S> postprocessQueue;
+    private final Thread preprocessThread;
+    private final Thread inferThread;
+    private final Thread postprocessThread;
+    private volatile boolean running;
+    private volatile long processedCount;
+
+    public interface Stages<T, S> {
+        S createSlot();
+        void preprocess(T frame, S slot);
+        void infer(S slot);
+        void postprocess(S slot);
+    }
+
+    public DetectionPipeline(String name, Stages<T, S> stages, FrameMailbox.Releaser<T> releaser) {
+        this(name, stages, releaser, DEFAULT_SLOTS);
+    }
+
+    public DetectionPipeline(String name, Stages<T, S> stages, FrameMailbox.Releaser<T> releaser, int slots) {
+        this.stages = stages;
+        this.releaser = releaser;
+        this.mailbox = new FrameMailbox<>(releaser);
+        this.freeSlots = new ArrayBlockingQueue<>(slots);
+        this.inferQueue = new ArrayBlockingQueue<>(slots);
+        this.postprocessQueue = new ArrayBlockingQueue<>(slots);
+        for (int i = 0; i < slots; i++) {
+            freeSlots.add(stages.createSlot());
+        }
+        this.preprocessThread = new Thread(this::runPreprocess, name + "-preprocess");
+        this.inferThread = new Thread(this::runInfer, name + "-infer");
+        this.postprocessThread = new Thread(this::runPostprocess, name + "-postprocess");
+    }
+
+    public void start() {
+        running = true;
+        preprocessThread.start();
+        inferThread.start();
+        postprocessThread.start();
+    }
+
+    // Hands the frame to the pipeline; ownership passes to the pipeline, which releases it as
+    // soon as it has been preprocessed.
+    public boolean submit(T frame) {
+        return mailbox.offer(frame);
+    }
+
+    public void stop() {
+        running = false;
+        mailbox.close();
+        preprocessThread.interrupt();
+        inferThread.interrupt();
+        postprocessThread.interrupt();
+    }
+
+    public void join() throws InterruptedException {
+        preprocessThread.join();
+        inferThread.join();
+        postprocessThread.join();
+    }
+
+    public long getSubmittedCount() {
+        return mailbox.getOfferedCount();
+    }
+
+    public long getDroppedCount() {
+        return mailbox.getDroppedCount();
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    private void runPreprocess() {
+        try {
+            while (running) {
+                // Claim a slot before taking a frame so the frame is as fresh as possible.
+                S slot = freeSlots.take();
+                T frame = mailbox.take();
+                if (frame == null) break;
+                boolean ok = false;
+                try {
+                    stages.preprocess(frame, slot);
+                    ok = true;
+                } catch (RuntimeException e) {
+                    Log.e("DetectionPipeline", "Preprocessing failed", e);
+                } finally {
+                    releaser.release(frame);
+                }
+                if (ok) {
+                    inferQueue.put(slot);
+                } else {
+                    freeSlots.put(slot);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    private void runInfer() {
+        try {
+            while (running) {
+                S slot = inferQueue.take();
+                try {
+                    stages.infer(slot);
+                } catch (RuntimeException e) {
+                    Log.e("DetectionPipeline", "Inference failed", e);
+                    freeSlots.put(slot);
+                    continue;
+                }
+                postprocessQueue.put(slot);
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    private void runPostprocess() {
+        try {
+            while (running) {
+                S slot = postprocessQueue.take();
+                try {
+                    stages.postprocess(slot);
+                } catch (RuntimeException e) {
+                    Log.e("DetectionPipeline", "Postprocessing failed", e);
+                }
+                processedCount++;
+                freeSlots.put(slot);
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    private static final int DEFAULT_SLOTS = 3;
+}
@@ -0,0 +1,9 @@
+package com.example.myapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Receives the detections of each processed frame, in frame order.
+public interface DetectionSink extends Closeable {
+    void write(long frameIndex, long timestampUs, DetectionBuffer detections) throws IOException;
+}
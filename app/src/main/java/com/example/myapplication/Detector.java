@@ -3,81 +3,418 @@ package com.example.myapplication;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.media.FaceDetector.Face;
+import android.content.pm.PackageManager;
 import android.os.SystemClock;
+import android.util.Log;
 import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 import org.tensorflow.lite.support.common.FileUtil;
-import org.tensorflow.lite.support.common.ops.CastOp;
-import org.tensorflow.lite.support.common.ops.NormalizeOp;
-import org.tensorflow.lite.support.image.ImageProcessor;
-import org.tensorflow.lite.support.image.TensorImage;
-import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import static java.lang.Math.max;
-import static java.lang.Math.min;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Detector {
     private Context context;
     private String modelPath;
     private String labelPath;
     private DetectorListener detectorListener;
+    private DetectorConfig config;
     private Interpreter interpreter;
+    private ByteBuffer model;
+    private int numThreads;
+    private InferenceGovernor governor;
+    private ObjectTracker tracker;
+    private KeyframeScheduler keyframeScheduler;
+    private RoiSelector roiSelector;
     private List<String> labels;
     private int tensorWidth;
     private int tensorHeight;
     private int numChannel;
     private int numElements;
-    private ImageProcessor imageProcessor;
+    private DataType inputType;
+    private float inputScale;
+    private int inputZeroPoint;
+    private TensorSlot slot;
+    private float[] output;
+    private byte[] quantizedOutput;
+    private DataType outputType;
+    private float outputScale;
+    private int outputZeroPoint;
+    private YoloDecoder decoder;
+    private DetectionBuffer candidates;
+    private DetectionBuffer detections;
+    private DetectionBuffer tracked;
+    private NonMaxSuppression nms;
+    private Interpreter batchInterpreter;
+    private boolean batchSupported;
+    private int batchSize;
+    private int maxBatchSize;
+    private ByteBuffer batchInput;
+    private ByteBuffer batchOutput;
+    private List<BatchItem> batchItems;
+    private ExecutorService batchExecutor;
+    private long setupStartedAt;
+    private long setupMillis;
+    private long warmUpMillis;
+    private boolean metadataCached;
+    private long firstBoxAt;
+    private PipelineMetrics metrics;
 
     public Detector(Context context, String modelPath, String labelPath, DetectorListener detectorListener) {
+        this(context, modelPath, labelPath, detectorListener, new DetectorConfig());
+    }
+
+    public Detector(Context context, String modelPath, String labelPath, DetectorListener detectorListener, DetectorConfig config) {
         this.context = context;
         this.modelPath = modelPath;
         this.labelPath = labelPath;
         this.detectorListener = detectorListener;
+        this.config = config;
         this.interpreter = null;
+        this.model = null;
+        this.numThreads = DEFAULT_NUM_THREADS;
+        this.governor = null;
+        this.tracker = null;
+        this.keyframeScheduler = null;
+        this.roiSelector = null;
         this.labels = new ArrayList<>();
         this.tensorWidth = 0;
         this.tensorHeight = 0;
         this.numChannel = 0;
         this.numElements = 0;
-        this.imageProcessor = new ImageProcessor.Builder()
-                .add(new NormalizeOp(INPUT_MEAN, INPUT_STANDARD_DEVIATION))
-                .add(new CastOp(INPUT_IMAGE_TYPE))
-                .build();
+        this.inputType = DataType.FLOAT32;
+        this.inputScale = 0F;
+        this.inputZeroPoint = 0;
+        this.slot = null;
+        this.output = new float[0];
+        this.quantizedOutput = new byte[0];
+        this.outputType = DataType.FLOAT32;
+        this.outputScale = 0F;
+        this.outputZeroPoint = 0;
+        this.decoder = new YoloDecoder();
+        this.candidates = new DetectionBuffer();
+        this.detections = new DetectionBuffer();
+        this.tracked = new DetectionBuffer();
+        this.nms = new NonMaxSuppression(config);
+        this.batchInterpreter = null;
+        this.batchSupported = true;
+        this.batchSize = 0;
+        this.maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        this.batchItems = new ArrayList<>();
+        this.batchExecutor = null;
+        this.setupStartedAt = 0;
+        this.setupMillis = 0;
+        this.warmUpMillis = 0;
+        this.metadataCached = false;
+        this.firstBoxAt = 0;
+        this.metrics = new PipelineMetrics();
     }
 
     public void setup() {
         try {
-            ByteBuffer model = FileUtil.loadMappedFile(context, modelPath);
-            Interpreter.Options options = new Interpreter.Options();
-            options.setNumThreads(4);
-            interpreter = new Interpreter(model, options);
-            int[] inputShape = interpreter.getInputTensor(0).shape();
-            int[] outputShape = interpreter.getOutputTensor(0).shape();
-            tensorWidth = inputShape[1];
-            tensorHeight = inputShape[2];
-            numChannel = outputShape[1];
-            numElements = outputShape[2];
-            InputStream inputStream = context.getAssets().open(labelPath);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line = reader.readLine();
-            while (line != null && !line.equals("")) {
-                labels.add(line);
-                line = reader.readLine();
+            setup(FileUtil.loadMappedFile(context, modelPath));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Runs setup() on executor so model mapping, interpreter creation and warm-up stay off the
+    // UI thread; the future completes with isReady().
+    public CompletableFuture<Boolean> setupAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            setup();
+            return isReady();
+        }, executor);
+    }
+
+    // The mapped model is read-only, so several detectors can share one (see DetectorPool).
+    public void setup(ByteBuffer model) {
+        long start = SystemClock.uptimeMillis();
+        if (setupStartedAt == 0) {
+            setupStartedAt = start;
+        }
+        try {
+            this.model = model;
+            interpreter = createInterpreter();
+            // Tensor shapes and labels are kept in a sidecar file in the cache directory, keyed
+            // by the installed app version, so later launches skip reading labels.txt.
+            File metadataFile = context == null ? null : metadataFile(context.getCacheDir());
+            String metadataKey = metadataKey(model);
+            metadataCached = metadataFile != null && readMetadata(metadataFile, metadataKey);
+            if (!metadataCached) {
+                readTensorMetadata();
+                readLabels();
+                if (metadataFile != null) {
+                    writeMetadata(metadataFile, metadataKey);
+                }
+            }
+            slot = createSlot();
+            if (outputType == DataType.FLOAT32) {
+                output = new float[numChannel * numElements];
+            } else {
+                quantizedOutput = new byte[numChannel * numElements];
             }
-            reader.close();
-            inputStream.close();
+            warmUp();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        setupMillis = SystemClock.uptimeMillis() - start;
+    }
+
+    private void readTensorMetadata() {
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        Tensor outputTensor = interpreter.getOutputTensor(0);
+        int[] inputShape = inputTensor.shape();
+        int[] outputShape = outputTensor.shape();
+        // The input is laid out as [1, height, width, 3].
+        tensorHeight = inputShape[1];
+        tensorWidth = inputShape[2];
+        numChannel = outputShape[1];
+        numElements = outputShape[2];
+        // Quantized models (last_int8.tflite) are fed and read in their native type; the
+        // quantization parameters replace the float normalization and dequantize step.
+        Tensor.QuantizationParams inputParams = inputTensor.quantizationParams();
+        inputType = inputTensor.dataType();
+        inputScale = inputParams.getScale();
+        inputZeroPoint = inputParams.getZeroPoint();
+        outputType = outputTensor.dataType();
+        outputScale = outputTensor.quantizationParams().getScale();
+        outputZeroPoint = outputTensor.quantizationParams().getZeroPoint();
+    }
+
+    private void readLabels() throws IOException {
+        labels.clear();
+        InputStream inputStream = context.getAssets().open(labelPath);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+        String line = reader.readLine();
+        while (line != null && !line.equals("")) {
+            labels.add(line);
+            line = reader.readLine();
+        }
+        reader.close();
+        inputStream.close();
+    }
+
+    // Assets only change when the app is updated, so the update time stands in for a checksum.
+    private String metadataKey(ByteBuffer model) {
+        long updated = 0;
+        if (context != null) {
+            try {
+                updated = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException e) {
+                updated = -1;
+            }
+        }
+        return modelPath + '|' + labelPath + '|' + model.capacity() + '|' + updated;
+    }
+
+    // One file per model and label set, so detectors for different models keep their own cache.
+    // The full paths are still checked against the key inside, in case two names collide.
+    private File metadataFile(File directory) {
+        String name = Integer.toHexString((modelPath + '|' + labelPath).hashCode());
+        return new File(directory, METADATA_FILE_PREFIX + name + METADATA_FILE_SUFFIX);
+    }
+
+    private boolean readMetadata(File file, String key) {
+        if (!file.exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != METADATA_VERSION || !in.readUTF().equals(key)) return false;
+            tensorWidth = in.readInt();
+            tensorHeight = in.readInt();
+            numChannel = in.readInt();
+            numElements = in.readInt();
+            inputType = DataType.valueOf(in.readUTF());
+            inputScale = in.readFloat();
+            inputZeroPoint = in.readInt();
+            outputType = DataType.valueOf(in.readUTF());
+            outputScale = in.readFloat();
+            outputZeroPoint = in.readInt();
+            int count = in.readInt();
+            labels.clear();
+            for (int i = 0; i < count; i++) {
+                labels.add(in.readUTF());
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            // A stale or damaged cache is simply rebuilt.
+            labels.clear();
+            return false;
+        }
+    }
+
+    // Written to a temporary file and renamed over the old one, so a detector setting up
+    // concurrently never reads a half-written cache; if two write at once, the last rename wins.
+    private void writeMetadata(File file, String key) {
+        File temp;
+        try {
+            temp = File.createTempFile(METADATA_FILE_PREFIX, ".tmp", file.getParentFile());
+        } catch (IOException e) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(METADATA_VERSION);
+            out.writeUTF(key);
+            out.writeInt(tensorWidth);
+            out.writeInt(tensorHeight);
+            out.writeInt(numChannel);
+            out.writeInt(numElements);
+            out.writeUTF(inputType.name());
+            out.writeFloat(inputScale);
+            out.writeInt(inputZeroPoint);
+            out.writeUTF(outputType.name());
+            out.writeFloat(outputScale);
+            out.writeInt(outputZeroPoint);
+            out.writeInt(labels.size());
+            for (String label : labels) {
+                out.writeUTF(label);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    // The first run allocates the interpreter's tensors and, with XNNPACK, packs the weights;
+    // doing it here on an all-zero input keeps that cost away from the first camera frame.
+    private void warmUp() {
+        long start = SystemClock.uptimeMillis();
+        ByteBuffer outputBuffer = slot.getOutputBuffer();
+        outputBuffer.rewind();
+        interpreter.run(slot.getPreprocessor().getInputBuffer(), outputBuffer);
+        warmUpMillis = SystemClock.uptimeMillis() - start;
+    }
+
+    // Time spent in setup(), warm-up included.
+    public long getSetupMillis() {
+        return setupMillis;
+    }
+
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    // True when the last setup() found the sidecar metadata, i.e. a warm start.
+    public boolean isMetadataCached() {
+        return metadataCached;
+    }
+
+    // From the start of the first setup() to the first frame with detections, or -1 if there has
+    // been none yet.
+    public long getTimeToFirstBoxMillis() {
+        return firstBoxAt == 0 || setupStartedAt == 0 ? -1 : firstBoxAt - setupStartedAt;
+    }
+
+    private Interpreter createInterpreter() {
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        return new Interpreter(model, options);
+    }
+
+    // Takes effect at the next setup().
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    // The governor sees every keyframe's interpreter invoke time; thread count changes it asks
+    // for are applied on the inference thread before the next run.
+    public void setGovernor(InferenceGovernor governor) {
+        this.governor = governor;
+    }
+
+    public InferenceGovernor getGovernor() {
+        return governor;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Lets several detectors, or a detector and the overlay, record into one set of histograms.
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // With a tracker, only keyframes chosen by the scheduler go through the interpreter; the
+    // frames in between report the tracker's predicted boxes. Results carry track ids either
+    // way. Pass nulls to run the model on every frame again.
+    public void setTracking(ObjectTracker tracker, KeyframeScheduler keyframeScheduler) {
+        this.tracker = tracker;
+        this.keyframeScheduler = keyframeScheduler;
+    }
+
+    public ObjectTracker getTracker() {
+        return tracker;
+    }
+
+    public KeyframeScheduler getKeyframeScheduler() {
+        return keyframeScheduler;
+    }
+
+    // Runs the model on a crop of each keyframe instead of the whole frame; boxes are mapped
+    // back to full-frame coordinates before they reach the tracker or the listener.
+    public void setRoiSelector(RoiSelector roiSelector) {
+        this.roiSelector = roiSelector;
+    }
+
+    public RoiSelector getRoiSelector() {
+        return roiSelector;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public int getTensorWidth() {
+        return tensorWidth;
+    }
+
+    public int getTensorHeight() {
+        return tensorHeight;
+    }
+
+    // Changes made to the returned config apply from the next frame.
+    public DetectorConfig getConfig() {
+        return config;
+    }
+
+    public long getAverageNmsNanos(DetectorConfig.NmsMode mode) {
+        return nms.getAverageNanos(mode);
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
     }
 
     public void clear() {
@@ -85,103 +422,388 @@ public class Detector {
             interpreter.close();
             interpreter = null;
         }
+        if (batchInterpreter != null) {
+            batchInterpreter.close();
+            batchInterpreter = null;
+            batchSize = 0;
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+            batchExecutor = null;
+        }
+    }
+
+    public boolean isReady() {
+        if (interpreter == null) return false;
+        if (tensorWidth == 0) return false;
+        if (tensorHeight == 0) return false;
+        if (numChannel == 0) return false;
+        return numElements != 0;
+    }
+
+    // Input and output buffers for one in-flight frame; setup() must have run.
+    public TensorSlot createSlot() {
+        TensorPreprocessor preprocessor = new TensorPreprocessor(tensorWidth, tensorHeight, INPUT_MEAN,
+                INPUT_STANDARD_DEVIATION, inputType, inputScale, inputZeroPoint);
+        return new TensorSlot(preprocessor, numChannel * numElements * outputType.byteSize());
     }
 
     public void detect(Bitmap frame) {
-        if (interpreter == null) return;
-        if (tensorWidth == 0) return;
-        if (tensorHeight == 0) return;
-        if (numChannel == 0) return;
-        if (numElements == 0) return;
-        long inferenceTime = SystemClock.uptimeMillis();
-        Bitmap resizedBitmap = Bitmap.createScaledBitmap(frame, tensorWidth, tensorHeight, false);
-        TensorImage tensorImage = new TensorImage(DataType.FLOAT32);
-        tensorImage.load(resizedBitmap);
-        TensorImage processedImage = imageProcessor.process(tensorImage);
-        ByteBuffer imageBuffer = processedImage.getBuffer();
-        TensorBuffer output = TensorBuffer.createFixedSize(new int[]{1, numChannel, numElements}, OUTPUT_IMAGE_TYPE);
-        interpreter.run(imageBuffer, output.getBuffer());
-        List<BoundingBox> bestBoxes = bestBox(output.getFloatArray());
+        if (!isReady()) return;
+        preprocess(frame, slot);
+        infer(slot);
+        postprocess(slot);
+    }
+
+    // Converts the camera's YUV planes straight into the input tensor, skipping the ARGB bitmap.
+    public void detect(YuvFrame frame) {
+        if (!isReady()) return;
+        preprocess(frame, slot);
+        infer(slot);
+        postprocess(slot);
+    }
+
+    // The three stages below can run on different threads (see DetectionPipeline) as long as
+    // each stage is only entered by one thread at a time and slots move through them in order.
+    public void preprocess(Bitmap frame, TensorSlot target) {
+        long start = System.nanoTime();
+        target.setStartTime(SystemClock.uptimeMillis());
+        // Bitmaps carry no capture time, so camera-to-result starts here.
+        target.setCaptureTimeNanos(SystemClock.elapsedRealtimeNanos());
+        target.setKeyframe(keyframeScheduler == null || keyframeScheduler.isKeyframe());
+        if (target.isKeyframe()) {
+            selectRoi(target);
+            writeInput(frame, target);
+        }
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, System.nanoTime() - start);
+    }
+
+    // ARGB frames decoded from a file (see ReplayFrameSource); like bitmaps, they carry no capture time.
+    public void preprocess(DecodedFrame frame, TensorSlot target) {
+        long start = System.nanoTime();
+        target.setStartTime(SystemClock.uptimeMillis());
+        target.setCaptureTimeNanos(SystemClock.elapsedRealtimeNanos());
+        target.setKeyframe(keyframeScheduler == null || keyframeScheduler.isKeyframe());
+        if (target.isKeyframe()) {
+            selectRoi(target);
+            target.getPreprocessor().writeArgb(frame.getPixels(), frame.getWidth(), frame.getHeight(),
+                    target.getRoiLeft(), target.getRoiTop(), target.getRoiRight(), target.getRoiBottom());
+        }
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, System.nanoTime() - start);
+    }
+
+    private void writeInput(Bitmap frame, TensorSlot target) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int[] pixels = target.getPixels(width * height);
+        frame.getPixels(pixels, 0, width, 0, 0, width, height);
+        target.getPreprocessor().writeArgb(pixels, width, height,
+                target.getRoiLeft(), target.getRoiTop(), target.getRoiRight(), target.getRoiBottom());
+    }
+
+    private void selectRoi(TensorSlot target) {
+        if (roiSelector != null) {
+            roiSelector.select(target);
+        } else {
+            target.setRoi(0F, 0F, 1F, 1F);
+        }
+    }
+
+    public void preprocess(YuvFrame frame, TensorSlot target) {
+        long start = System.nanoTime();
+        target.setStartTime(SystemClock.uptimeMillis());
+        target.setCaptureTimeNanos(frame.getTimestampNanos() > 0 ? frame.getTimestampNanos() : SystemClock.elapsedRealtimeNanos());
+        target.setKeyframe(keyframeScheduler == null || keyframeScheduler.isKeyframe(frame));
+        if (target.isKeyframe()) {
+            selectRoi(target);
+            YuvConverter converter = target.getYuvConverter();
+            converter.setCrop(target.getRoiLeft(), target.getRoiTop(), target.getRoiRight(), target.getRoiBottom());
+            converter.convert(frame, target.getPreprocessor());
+        }
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, System.nanoTime() - start);
+    }
+
+    public void infer(TensorSlot target) {
+        if (!target.isKeyframe()) return;
+        if (governor != null && governor.getThreadCount() != numThreads) {
+            // The thread count is fixed when an interpreter is built, so build a new one.
+            numThreads = governor.getThreadCount();
+            interpreter.close();
+            interpreter = createInterpreter();
+            // Untimed, like warmUp(): the new interpreter's slow first run would otherwise land
+            // in the governor's window and could make it undo the change it just asked for.
+            ByteBuffer outputBuffer = target.getOutputBuffer();
+            outputBuffer.rewind();
+            interpreter.run(target.getPreprocessor().getInputBuffer(), outputBuffer);
+        }
+        ByteBuffer outputBuffer = target.getOutputBuffer();
+        outputBuffer.rewind();
+        long start = System.nanoTime();
+        interpreter.run(target.getPreprocessor().getInputBuffer(), outputBuffer);
+        long invokeNanos = System.nanoTime() - start;
+        target.setInvokeNanos(invokeNanos);
+        metrics.record(PipelineMetrics.Stage.INVOKE, invokeNanos);
+    }
+
+    public void postprocess(TensorSlot target) {
+        DetectionBuffer bestBoxes = target.isKeyframe() ? bestBox(target) : null;
+        if (roiSelector != null && target.isKeyframe()) {
+            if (bestBoxes == null) detections.clear();
+            roiSelector.onResults(detections);
+        }
+        if (tracker != null) {
+            if (!target.isKeyframe()) {
+                tracker.predict(tracked);
+            } else if (bestBoxes != null) {
+                tracker.update(bestBoxes, tracked);
+            } else {
+                detections.clear();
+                tracker.update(detections, tracked);
+            }
+            bestBoxes = tracked.isEmpty() ? null : tracked;
+        }
+        long inferenceTime = SystemClock.uptimeMillis() - target.getStartTime();
+        // Only model runs count towards the governor's budget: the invoke time alone, not the
+        // time the slot spent in preprocessing or waiting between pipeline stages.
+        if (governor != null && target.isKeyframe()) {
+            governor.onFrame((target.getInvokeNanos() + 500000L) / 1000000L);
+        }
+        metrics.record(PipelineMetrics.Stage.CAMERA_TO_RESULT,
+                SystemClock.elapsedRealtimeNanos() - target.getCaptureTimeNanos());
         if (bestBoxes == null) {
-            detectorListener.onEmptyDetect();
+            detectorListener.onEmptyDetect(inferenceTime);
             return;
         }
-        inferenceTime = SystemClock.uptimeMillis() - inferenceTime;
+        if (firstBoxAt == 0) {
+            firstBoxAt = SystemClock.uptimeMillis();
+            Log.i(TAG, (metadataCached ? "Warm" : "Cold") + " start: first box after " + getTimeToFirstBoxMillis()
+                    + " ms (setup " + setupMillis + " ms, warm-up " + warmUpMillis + " ms)");
+        }
         detectorListener.onDetect(bestBoxes, inferenceTime);
     }
 
-    private List<BoundingBox> bestBox(float[] array) {
-        List<BoundingBox> boundingBoxes = new ArrayList<>();
-        for (int c = 0; c < numElements; c++) {
-            List<Float> confidences = new ArrayList<>();
-            for (int i = 4; i < numChannel; i++) {
-                confidences.add(array[c + numElements * i]);
-            }
-            float cnf = Collections.max(confidences);
-            if (cnf > CONFIDENCE_THRESHOLD) {
-                int cls = confidences.indexOf(cnf);
-                String clsName = labels.get(cls);
-                float cx = array[c];
-                float cy = array[c + numElements];
-                float w = array[c + numElements * 2];
-                float h = array[c + numElements * 3];
-                float x1 = cx - (w / 2F);
-                float y1 = cy - (h / 2F);
-                float x2 = cx + (w / 2F);
-                float y2 = cy + (h / 2F);
-                if (x1 < 0F || x1 > 1F) continue;
-                if (y1 < 0F || y1 > 1F) continue;
-                if (x2 < 0F || x2 > 1F) continue;
-                if (y2 < 0F || y2 > 1F) continue;
-                boundingBoxes.add(new BoundingBox(x1, y1, x2, y2, cx, cy, w, h, cnf, cls, clsName));
-            }
+    // Runs the model and copies the detections into out instead of notifying the listener;
+    // returns the number of detections. Tracking is bypassed.
+    public int detect(Bitmap frame, DetectionBuffer out) {
+        out.clear();
+        if (!isReady()) return 0;
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int[] pixels = slot.getPixels(width * height);
+        frame.getPixels(pixels, 0, width, 0, 0, width, height);
+        return detect(pixels, width, height, 0F, 0F, 1F, 1F, out);
+    }
+
+    // Same, on the normalized region [left, right) x [top, bottom) of ARGB pixels the caller has
+    // already read, so several regions of one frame (see TiledDetector) share a single copy.
+    // Boxes are in full-frame coordinates.
+    public int detect(int[] pixels, int width, int height, float left, float top, float right, float bottom,
+                      DetectionBuffer out) {
+        out.clear();
+        if (!isReady()) return 0;
+        slot.setStartTime(SystemClock.uptimeMillis());
+        slot.setKeyframe(true);
+        slot.setRoi(left, top, right, bottom);
+        long start = System.nanoTime();
+        slot.getPreprocessor().writeArgb(pixels, width, height, left, top, right, bottom);
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, System.nanoTime() - start);
+        infer(slot);
+        DetectionBuffer bestBoxes = bestBox(slot);
+        if (bestBoxes != null) {
+            out.copyFrom(bestBoxes);
         }
-        if (boundingBoxes.isEmpty()) return null;
-        return applyNMS(boundingBoxes);
-    }
-
-    private List<BoundingBox> applyNMS(List<BoundingBox> boxes) {
-        List<BoundingBox> sortedBoxes = new ArrayList<>(boxes);
-        sortedBoxes.sort((box1, box2) -> Float.compare(box2.getCnf(), box1.getCnf()));
-        List<BoundingBox> selectedBoxes = new ArrayList<>();
-        while (!sortedBoxes.isEmpty()) {
-            BoundingBox first = sortedBoxes.get(0);
-            selectedBoxes.add(first);
-            sortedBoxes.remove(first);
-            Iterator<BoundingBox> iterator = sortedBoxes.iterator();
-            while (iterator.hasNext()) {
-                BoundingBox nextBox = iterator.next();
-                float iou = calculateIoU(first, nextBox);
-                if (iou >= IOU_THRESHOLD) {
-                    iterator.remove();
+        return out.size();
+    }
+
+    // Runs the frames through the model in batches of up to maxBatchSize with one interpreter
+    // call per batch, and returns one new buffer of detections per frame, in order. The batch
+    // interpreter is separate from the per-frame one so the camera path keeps its [1, H, W, 3]
+    // input. Packing the frames and decoding the outputs is spread over numThreads threads.
+    // Models whose batch dimension cannot be resized fall back to one frame per call.
+    public List<DetectionBuffer> detect(List<Bitmap> frames) throws InterruptedException, ExecutionException {
+        List<DetectionBuffer> results = new ArrayList<>(frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            results.add(new DetectionBuffer());
+        }
+        if (!isReady()) return results;
+        for (int start = 0; start < frames.size(); start += maxBatchSize) {
+            int end = Math.min(frames.size(), start + maxBatchSize);
+            if (!prepareBatch(end - start)) {
+                for (int i = start; i < end; i++) {
+                    detect(frames.get(i), results.get(i));
                 }
+                continue;
             }
+            runBatch(frames.subList(start, end), results.subList(start, end));
+        }
+        return results;
+    }
+
+    private boolean prepareBatch(int size) {
+        if (!batchSupported) return false;
+        if (batchInterpreter != null && batchSize == size) return true;
+        if (batchInterpreter == null) {
+            batchInterpreter = createInterpreter();
+        }
+        boolean resized;
+        try {
+            batchInterpreter.resizeInput(0, new int[]{size, tensorHeight, tensorWidth, CHANNELS});
+            batchInterpreter.allocateTensors();
+            // A graph that allocates but keeps a batch-1 output would have runBatch slice
+            // memory the interpreter never wrote.
+            resized = batchInterpreter.getOutputTensor(0).shape()[0] == size;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // allocateTensors() throws IllegalStateException when the graph cannot be resized,
+            // e.g. a reshape hard-coded to batch 1.
+            resized = false;
+        }
+        if (!resized) {
+            batchSupported = false;
+            batchInterpreter.close();
+            batchInterpreter = null;
+            return false;
         }
-        return selectedBoxes;
+        batchSize = size;
+        int inputBytes = tensorWidth * tensorHeight * CHANNELS * inputType.byteSize();
+        int outputBytes = numChannel * numElements * outputType.byteSize();
+        batchInput = ByteBuffer.allocateDirect(size * inputBytes).order(ByteOrder.nativeOrder());
+        batchOutput = ByteBuffer.allocateDirect(size * outputBytes).order(ByteOrder.nativeOrder());
+        // Each frame reads and writes its own slice of the packed buffers, so no copies are made.
+        batchItems.clear();
+        for (int i = 0; i < size; i++) {
+            TensorPreprocessor preprocessor = new TensorPreprocessor(tensorWidth, tensorHeight, INPUT_MEAN,
+                    INPUT_STANDARD_DEVIATION, inputType, inputScale, inputZeroPoint,
+                    slice(batchInput, i * inputBytes, inputBytes));
+            batchItems.add(new BatchItem(new TensorSlot(preprocessor, slice(batchOutput, i * outputBytes, outputBytes)),
+                    numChannel * numElements));
+        }
+        if (batchExecutor == null) {
+            batchExecutor = Executors.newFixedThreadPool(numThreads,
+                    runnable -> new Thread(runnable, "Detector-batch"));
+        }
+        return true;
     }
 
-    private float calculateIoU(BoundingBox box1, BoundingBox box2) {
-        float x1 = max(box1.getX1(), box2.getX1());
-        float y1 = max(box1.getY1(), box2.getY1());
-        float x2 = min(box1.getX2(), box2.getX2());
-        float y2 = min(box1.getY2(), box2.getY2());
-        float intersectionArea = max(0F, x2 - x1) * max(0F, y2 - y1);
-        float box1Area = box1.getW() * box1.getH();
-        float box2Area = box2.getW() * box2.getH();
-        return intersectionArea / (box1Area + box2Area - intersectionArea);
+    private void runBatch(List<Bitmap> frames, List<DetectionBuffer> results)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Void>> tasks = new ArrayList<>(frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            Bitmap frame = frames.get(i);
+            TensorSlot item = batchItems.get(i).slot;
+            tasks.add(() -> {
+                item.setRoi(0F, 0F, 1F, 1F);
+                writeInput(frame, item);
+                return null;
+            });
+        }
+        waitForAll(batchExecutor.invokeAll(tasks));
+        batchInput.rewind();
+        batchOutput.rewind();
+        batchInterpreter.run(batchInput, batchOutput);
+        tasks.clear();
+        for (int i = 0; i < frames.size(); i++) {
+            BatchItem item = batchItems.get(i);
+            DetectionBuffer out = results.get(i);
+            tasks.add(() -> {
+                decode(item.slot, item.output, item.quantizedOutput, item.decoder, item.candidates, item.nms, out);
+                return null;
+            });
+        }
+        waitForAll(batchExecutor.invokeAll(tasks));
+    }
+
+    private static void waitForAll(List<Future<Void>> futures) throws InterruptedException, ExecutionException {
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private DetectionBuffer bestBox(TensorSlot source) {
+        int count = decode(source, output, quantizedOutput, decoder, candidates, nms, detections);
+        return count == 0 ? null : detections;
+    }
+
+    // Decodes and suppresses one frame's output into out, in full-frame coordinates.
+    private int decode(TensorSlot source, float[] output, byte[] quantizedOutput, YoloDecoder decoder,
+                       DetectionBuffer candidates, NonMaxSuppression nms, DetectionBuffer out) {
+        int count;
+        long start = System.nanoTime();
+        if (outputType == DataType.FLOAT32) {
+            FloatBuffer outputFloats = source.getOutputFloats();
+            outputFloats.rewind();
+            outputFloats.get(output);
+            count = decoder.decode(output, numChannel, numElements, labels, config.getConfidenceThreshold(), candidates);
+        } else {
+            ByteBuffer outputBuffer = source.getOutputBuffer();
+            outputBuffer.rewind();
+            outputBuffer.get(quantizedOutput);
+            count = decoder.decode(quantizedOutput, numChannel, numElements, labels, config.getConfidenceThreshold(),
+                    outputScale, outputZeroPoint, outputType == DataType.INT8, candidates);
+        }
+        long decoded = System.nanoTime();
+        metrics.record(PipelineMetrics.Stage.DECODE, decoded - start);
+        if (count == 0) return 0;
+        nms.apply(candidates, out);
+        metrics.record(PipelineMetrics.Stage.NMS, System.nanoTime() - decoded);
+        if (!source.isFullFrame()) {
+            float scaleX = source.getRoiRight() - source.getRoiLeft();
+            float scaleY = source.getRoiBottom() - source.getRoiTop();
+            out.transform(scaleX, scaleY, source.getRoiLeft(), source.getRoiTop());
+        }
+        return out.size();
+    }
+
+    // Per-frame decode state, so the frames of a batch can be decoded concurrently.
+    private class BatchItem {
+        private final TensorSlot slot;
+        private final float[] output;
+        private final byte[] quantizedOutput;
+        private final YoloDecoder decoder;
+        private final DetectionBuffer candidates;
+        private final NonMaxSuppression nms;
+
+        BatchItem(TensorSlot slot, int outputSize) {
+            this.slot = slot;
+            this.output = new float[outputType == DataType.FLOAT32 ? outputSize : 0];
+            this.quantizedOutput = new byte[outputType == DataType.FLOAT32 ? 0 : outputSize];
+            this.decoder = new YoloDecoder();
+            this.candidates = new DetectionBuffer();
+            this.nms = new NonMaxSuppression(config);
+        }
     }
 
     public interface DetectorListener {
         void onEmptyDetect();
+
+        // Frames without detections take as long as any other; listeners that track timing get it here.
+        default void onEmptyDetect(long inferenceTime) {
+            onEmptyDetect();
+        }
+
         void onDetect(List<BoundingBox> boundingBoxes, long inferenceTime);
+
+        // The buffer is reused for the next frame; copy it to keep the results.
+        default void onDetect(DetectionBuffer detections, long inferenceTime) {
+            onDetect(detections.toBoundingBoxes(), inferenceTime);
+        }
     }
 
+    private static final String TAG = "Detector";
+    private static final String METADATA_FILE_PREFIX = "model_metadata_";
+    private static final String METADATA_FILE_SUFFIX = ".bin";
+    private static final int METADATA_VERSION = 1;
+    private static final int DEFAULT_NUM_THREADS = 4;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 8;
+    private static final int CHANNELS = 3;
     private static final float INPUT_MEAN = 0f;
     private static final float INPUT_STANDARD_DEVIATION = 255f;
-    private static final DataType INPUT_IMAGE_TYPE = DataType.FLOAT32;
-    private static final DataType OUTPUT_IMAGE_TYPE = DataType.FLOAT32;
-    private static final float CONFIDENCE_THRESHOLD = 0.75F;
-    private static final float IOU_THRESHOLD = 0.5F;
 }
 
 
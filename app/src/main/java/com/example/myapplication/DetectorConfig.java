@@ -0,0 +1,97 @@
+package com.example.myapplication;
+
+public class DetectorConfig {
+    private float confidenceThreshold;
+    private float iouThreshold;
+    private int maxDetections;
+    private int nmsTopK;
+    private NmsMode nmsMode;
+    private float softNmsSigma;
+    private float softNmsScoreThreshold;
+    private boolean spatialIndexEnabled;
+
+    public enum NmsMode {
+        CLASS_AGNOSTIC,
+        CLASS_AWARE,
+        SOFT_LINEAR,
+        SOFT_GAUSSIAN
+    }
+
+    public DetectorConfig() {
+        this.confidenceThreshold = 0.75F;
+        this.iouThreshold = 0.5F;
+        this.maxDetections = 300;
+        this.nmsTopK = 3000;
+        this.nmsMode = NmsMode.CLASS_AGNOSTIC;
+        this.softNmsSigma = 0.5F;
+        this.softNmsScoreThreshold = 0.5F;
+        this.spatialIndexEnabled = true;
+    }
+
+    public float getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    public void setConfidenceThreshold(float confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public float getIouThreshold() {
+        return iouThreshold;
+    }
+
+    public void setIouThreshold(float iouThreshold) {
+        this.iouThreshold = iouThreshold;
+    }
+
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+
+    public void setMaxDetections(int maxDetections) {
+        this.maxDetections = maxDetections;
+    }
+
+    public int getNmsTopK() {
+        return nmsTopK;
+    }
+
+    public void setNmsTopK(int nmsTopK) {
+        this.nmsTopK = nmsTopK;
+    }
+
+    public NmsMode getNmsMode() {
+        return nmsMode;
+    }
+
+    public void setNmsMode(NmsMode nmsMode) {
+        this.nmsMode = nmsMode;
+    }
+
+    public float getSoftNmsSigma() {
+        return softNmsSigma;
+    }
+
+    public void setSoftNmsSigma(float softNmsSigma) {
+        this.softNmsSigma = softNmsSigma;
+    }
+
+    // Soft-NMS keeps decaying overlapping boxes instead of dropping them; a box is only
+    // discarded once its decayed confidence falls below this value.
+    public float getSoftNmsScoreThreshold() {
+        return softNmsScoreThreshold;
+    }
+
+    public void setSoftNmsScoreThreshold(float softNmsScoreThreshold) {
+        this.softNmsScoreThreshold = softNmsScoreThreshold;
+    }
+
+    // Buckets candidates on a uniform grid so hard NMS only compares boxes that can overlap.
+    public boolean isSpatialIndexEnabled() {
+        return spatialIndexEnabled;
+    }
+
+    public void setSpatialIndexEnabled(boolean spatialIndexEnabled) {
+        this.spatialIndexEnabled = spatialIndexEnabled;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// N detectors, each with its own interpreter, thread budget and buffers, sharing one mapped
+// model. Tasks run on a fixed pool of N threads and get exclusive use of one detector for their
+// duration, so several streams (both cameras, recorded clips) can be processed concurrently.
+public class DetectorPool {
+    private final List<Detector> detectors;
+    private final ArrayBlockingQueue<Detector> idle;
+    private final ExecutorService executor;
+    private final AtomicLong completedCount;
+    private final AtomicLong busyNanos;
+    private final long createdAt;
+
+    public interface Task<R> {
+        R run(Detector detector) throws Exception;
+    }
+
+    DetectorPool(List<Detector> detectors) {
+        this.detectors = new ArrayList<>(detectors);
+        this.idle = new ArrayBlockingQueue<>(detectors.size());
+        this.idle.addAll(detectors);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(detectors.size(),
+                runnable -> new Thread(runnable, "DetectorPool-" + threadIndex.getAndIncrement()));
+        this.completedCount = new AtomicLong();
+        this.busyNanos = new AtomicLong();
+        this.createdAt = System.nanoTime();
+    }
+
+    // Maps the model once and builds size detectors on it. threadsPerDetector splits the CPU
+    // between them; size * threadsPerDetector should not exceed the number of cores.
+    public static DetectorPool create(Context context, String modelPath, String labelPath, DetectorConfig config,
+                                      int size, int threadsPerDetector) throws IOException {
+        ByteBuffer model = FileUtil.loadMappedFile(context, modelPath);
+        List<Detector> detectors = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            // The config is only read per frame, so changes to it reach every detector.
+            Detector detector = new Detector(context, modelPath, labelPath, NO_OP_LISTENER, config);
+            detector.setNumThreads(threadsPerDetector);
+            detector.setup(model);
+            detectors.add(detector);
+        }
+        return new DetectorPool(detectors);
+    }
+
+    public <R> Future<R> submit(Task<R> task) {
+        return executor.submit(() -> {
+            Detector detector = idle.take();
+            long start = System.nanoTime();
+            try {
+                return task.run(detector);
+            } finally {
+                busyNanos.addAndGet(System.nanoTime() - start);
+                completedCount.incrementAndGet();
+                idle.put(detector);
+            }
+        });
+    }
+
+    // Detects on frame and fills out, which the caller owns; the future yields out.
+    public Future<DetectionBuffer> submit(Bitmap frame, DetectionBuffer out) {
+        return submit(detector -> {
+            detector.detect(frame, out);
+            return out;
+        });
+    }
+
+    // Labels of the shared model, read by setup().
+    public List<String> getLabels() {
+        return detectors.get(0).getLabels();
+    }
+
+    public int getSize() {
+        return detectors.size();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    // Completed tasks per second since the pool was created.
+    public float getThroughput() {
+        long elapsed = System.nanoTime() - createdAt;
+        return elapsed == 0 ? 0F : completedCount.get() * 1e9F / elapsed;
+    }
+
+    public long getAverageTaskNanos() {
+        long completed = completedCount.get();
+        return completed == 0 ? 0 : busyNanos.get() / completed;
+    }
+
+    // Waits for queued tasks, then closes every interpreter.
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        for (Detector detector : detectors) {
+            detector.clear();
+        }
+    }
+
+    private static final Detector.DetectorListener NO_OP_LISTENER = new Detector.DetectorListener() {
+        @Override
+        public void onEmptyDetect() {
+        }
+
+        @Override
+        public void onDetect(List<BoundingBox> boundingBoxes, long inferenceTime) {
+        }
+    };
+}
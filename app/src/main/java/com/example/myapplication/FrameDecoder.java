@@ -0,0 +1,10 @@
+package com.example.myapplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Produces frames one at a time, decoding each only when asked for it.
+public interface FrameDecoder extends Closeable {
+    // Decodes the next frame into frame; returns false once the input is exhausted.
+    boolean next(DecodedFrame frame) throws IOException;
+}
@@ -0,0 +1,73 @@
+package com.example.myapplication;
+
+// Single-slot hand-off between a frame producer and the detection thread. A new frame
+// replaces one that has not been picked up yet, so the consumer always works on the most
+// recent frame and latency never exceeds one inference plus the wait for the next frame.
+public class FrameMailbox<T> {
+    private final Releaser<T> releaser;
+    private T pending;
+    private boolean closed;
+    private long offeredCount;
+    private long droppedCount;
+
+    public interface Releaser<T> {
+        void release(T frame);
+    }
+
+    public FrameMailbox(Releaser<T> releaser) {
+        this.releaser = releaser;
+    }
+
+    // Returns false if the mailbox is closed, in which case the frame is released immediately.
+    public boolean offer(T frame) {
+        T dropped;
+        synchronized (this) {
+            if (closed) {
+                dropped = frame;
+            } else {
+                offeredCount++;
+                dropped = pending;
+                pending = frame;
+                if (dropped != null) {
+                    droppedCount++;
+                }
+                notifyAll();
+            }
+        }
+        if (dropped != null) {
+            releaser.release(dropped);
+        }
+        return dropped != frame;
+    }
+
+    // Blocks until a frame is available; returns null once the mailbox is closed.
+    public synchronized T take() throws InterruptedException {
+        while (pending == null && !closed) {
+            wait();
+        }
+        T frame = pending;
+        pending = null;
+        return frame;
+    }
+
+    public void close() {
+        T dropped;
+        synchronized (this) {
+            closed = true;
+            dropped = pending;
+            pending = null;
+            notifyAll();
+        }
+        if (dropped != null) {
+            releaser.release(dropped);
+        }
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
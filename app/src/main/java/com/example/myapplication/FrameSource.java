@@ -0,0 +1,25 @@
+package com.example.myapplication;
+
+import java.io.IOException;
+
+// Where detection frames come from: the camera (CameraFrameSource) or a recording replayed
+// from disk (ReplayFrameSource). Either one feeds the same pipeline, detector and overlay.
+public interface FrameSource {
+    interface Listener {
+        // Called on the source's own thread; the listener takes ownership of the frame.
+        void onFrame(SourceFrame frame);
+
+        // No more frames will be delivered, because the recording ended or the source was stopped.
+        void onEnd();
+    }
+
+    void start(Listener listener) throws IOException;
+
+    // True if every frame must be processed, so the same input gives the same results on every
+    // run; the inference governor is not allowed to skip frames from such a source.
+    default boolean isLossless() {
+        return false;
+    }
+
+    void stop();
+}
@@ -0,0 +1,141 @@
+package com.example.myapplication;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Decodes the images of a directory in file-name order, one per next() call. Binary PPM (P6)
+// files are read directly, which is what the JVM tests generate; other formats go through
+// BitmapFactory, decoding into the previous bitmap when the sizes match.
+public class ImageFolderDecoder implements FrameDecoder {
+    private final File[] files;
+    private final long frameIntervalUs;
+    private int position;
+    private Bitmap bitmap;
+
+    public ImageFolderDecoder(File directory) throws IOException {
+        this(directory, DEFAULT_FRAME_INTERVAL_US);
+    }
+
+    // frameIntervalUs spaces the timestamps reported for consecutive images.
+    public ImageFolderDecoder(File directory, long frameIntervalUs) throws IOException {
+        File[] listed = directory.listFiles(file -> file.isFile() && isImage(file.getName()));
+        if (listed == null) {
+            throw new IOException("Not a readable directory: " + directory);
+        }
+        Arrays.sort(listed);
+        this.files = listed;
+        this.frameIntervalUs = frameIntervalUs;
+        this.position = 0;
+        this.bitmap = null;
+    }
+
+    public int getFrameCount() {
+        return files.length;
+    }
+
+    @Override
+    public boolean next(DecodedFrame frame) throws IOException {
+        if (position >= files.length) return false;
+        File file = files[position];
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(".ppm")) {
+            readPpm(file, frame);
+        } else {
+            readBitmap(file, frame);
+        }
+        frame.setIndex(position);
+        frame.setTimestampUs(position * frameIntervalUs);
+        position++;
+        return true;
+    }
+
+    private void readBitmap(File file, DecodedFrame frame) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inBitmap = bitmap;
+        Bitmap decoded;
+        try {
+            decoded = BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            // The previous bitmap cannot hold this image; decode into a new one.
+            options.inBitmap = null;
+            decoded = BitmapFactory.decodeFile(file.getPath(), options);
+        }
+        if (decoded == null) {
+            throw new IOException("Cannot decode " + file);
+        }
+        bitmap = decoded;
+        int width = decoded.getWidth();
+        int height = decoded.getHeight();
+        decoded.getPixels(frame.setSize(width, height), 0, width, 0, 0, width, height);
+    }
+
+    static void readPpm(File file, DecodedFrame frame) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            if (in.read() != 'P' || in.read() != '6') {
+                throw new IOException("Not a binary PPM: " + file);
+            }
+            int width = readHeaderInt(in);
+            int height = readHeaderInt(in);
+            int maxValue = readHeaderInt(in);
+            if (maxValue != 255) {
+                throw new IOException("Unsupported PPM depth " + maxValue + ": " + file);
+            }
+            int[] pixels = frame.setSize(width, height);
+            byte[] row = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                int read = 0;
+                while (read < row.length) {
+                    int n = in.read(row, read, row.length - read);
+                    if (n < 0) throw new IOException("Truncated PPM: " + file);
+                    read += n;
+                }
+                int offset = y * width;
+                for (int x = 0, i = 0; x < width; x++, i += 3) {
+                    pixels[offset + x] = 0xFF000000 | (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | (row[i + 2] & 0xFF);
+                }
+            }
+        }
+    }
+
+    // Skips whitespace and # comments, then reads a decimal number and the one byte after it.
+    private static int readHeaderInt(InputStream in) throws IOException {
+        int c = in.read();
+        while (c == '#' || Character.isWhitespace(c)) {
+            if (c == '#') {
+                while (c != '\n' && c != -1) c = in.read();
+            }
+            c = in.read();
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = in.read();
+        }
+        return value;
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (lower.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        bitmap = null;
+    }
+
+    private static final long DEFAULT_FRAME_INTERVAL_US = 33333;
+    private static final String[] EXTENSIONS = {".jpg", ".jpeg", ".png", ".webp", ".bmp", ".ppm"};
+}
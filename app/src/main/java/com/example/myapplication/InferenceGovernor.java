@@ -0,0 +1,152 @@
+package com.example.myapplication;
+
+// Adapts the interpreter thread count and an inference stride (run every Nth frame) to a
+// per-frame latency budget, using the inference times Detector already measures. Times are
+// averaged over a window of frames, then:
+//  - over budget, it tries one more thread and keeps it only if frames got at least
+//    MIN_THREAD_GAIN faster; otherwise it reverts and stops adding threads beyond that count,
+//  - well under budget, it gives a thread back to save power and heat,
+//  - the stride is set so that the average time fits the budget stride times over, so frames
+//    are skipped deterministically instead of piling up behind the interpreter.
+// Detector applies thread changes on its inference thread; camera code asks shouldProcess()
+// before submitting a frame.
+public class InferenceGovernor {
+    private final float targetFrameMillis;
+    private final int minThreads;
+    private final int maxStride;
+    private int maxThreads;
+    private int threadCeiling;
+    private volatile int threadCount;
+    private volatile int stride;
+    private long windowSum;
+    private int windowFrames;
+    private float averageMillis;
+    private int trialFromThreads;
+    private float trialBaselineMillis;
+    private int framesSinceProcessed;
+    private long processedFrames;
+    private long skippedFrames;
+    private int threadChanges;
+    private int strideChanges;
+
+    public InferenceGovernor(float targetFrameMillis, int initialThreads, int minThreads, int maxThreads, int maxStride) {
+        this.targetFrameMillis = targetFrameMillis;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.maxStride = maxStride;
+        this.threadCeiling = maxThreads;
+        this.threadCount = Math.max(minThreads, Math.min(maxThreads, initialThreads));
+        this.stride = 1;
+        this.trialFromThreads = 0;
+    }
+
+    // Called with the measured time of every inferred frame.
+    public synchronized void onFrame(long inferenceMillis) {
+        windowSum += inferenceMillis;
+        windowFrames++;
+        if (windowFrames < WINDOW_FRAMES) return;
+        averageMillis = (float) windowSum / windowFrames;
+        windowSum = 0;
+        windowFrames = 0;
+        evaluate(averageMillis);
+    }
+
+    // Called for every camera frame; false means the frame should be dropped unprocessed.
+    public synchronized boolean shouldProcess() {
+        framesSinceProcessed++;
+        if (framesSinceProcessed < stride) {
+            skippedFrames++;
+            return false;
+        }
+        framesSinceProcessed = 0;
+        processedFrames++;
+        return true;
+    }
+
+    // Lowers (or restores) the thread limit, e.g. when the device reports thermal throttling.
+    public synchronized void setMaxThreads(int maxThreads) {
+        this.maxThreads = Math.max(minThreads, maxThreads);
+        this.threadCeiling = this.maxThreads;
+        if (threadCount > this.maxThreads) {
+            setThreadCount(this.maxThreads);
+        }
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public float getTargetFrameMillis() {
+        return targetFrameMillis;
+    }
+
+    // Average inference time over the last complete window.
+    public synchronized float getAverageMillis() {
+        return averageMillis;
+    }
+
+    public synchronized int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public synchronized long getProcessedFrames() {
+        return processedFrames;
+    }
+
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public synchronized int getThreadChanges() {
+        return threadChanges;
+    }
+
+    public synchronized int getStrideChanges() {
+        return strideChanges;
+    }
+
+    private void evaluate(float average) {
+        if (trialFromThreads != 0) {
+            int from = trialFromThreads;
+            trialFromThreads = 0;
+            if (average > trialBaselineMillis * (1F - MIN_THREAD_GAIN)) {
+                // The extra thread did not pay off; go back and remember the limit.
+                threadCeiling = from;
+                setThreadCount(from);
+                return;
+            }
+        }
+        if (average > targetFrameMillis) {
+            if (threadCount < Math.min(maxThreads, threadCeiling)) {
+                trialFromThreads = threadCount;
+                trialBaselineMillis = average;
+                setThreadCount(threadCount + 1);
+                return;
+            }
+        } else if (average < targetFrameMillis * RELAX_FRACTION && threadCount > minThreads) {
+            // Under half the budget one thread fewer still fits, assuming at best linear scaling.
+            setThreadCount(threadCount - 1);
+            return;
+        }
+        int wanted = (int) Math.ceil(average / targetFrameMillis);
+        wanted = Math.max(1, Math.min(maxStride, wanted));
+        if (wanted != stride) {
+            stride = wanted;
+            strideChanges++;
+        }
+    }
+
+    private void setThreadCount(int threads) {
+        if (threads == threadCount) return;
+        threadCount = threads;
+        threadChanges++;
+    }
+
+    private static final int WINDOW_FRAMES = 15;
+    private static final float MIN_THREAD_GAIN = 0.05F;
+    private static final float RELAX_FRACTION = 0.5F;
+}
@@ -0,0 +1,84 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+// Decides which frames get full inference when ObjectTracker fills in the rest: every
+// keyframeInterval-th frame, and any frame whose luma differs noticeably from the last
+// keyframe. Motion is the mean absolute difference over a coarse grid of luma samples, which
+// costs a few hundred reads per frame instead of a model run.
+public class KeyframeScheduler {
+    private final int keyframeInterval;
+    private final float motionThreshold;
+    private final int[] reference;
+    private final int[] current;
+    private boolean hasReference;
+    private int framesSinceKeyframe;
+    private float lastMotion;
+    private long keyframeCount;
+    private long trackedCount;
+
+    // motionThreshold is a fraction of full scale, e.g. 0.05 for an average change of 5%.
+    public KeyframeScheduler(int keyframeInterval, float motionThreshold) {
+        this.keyframeInterval = keyframeInterval;
+        this.motionThreshold = motionThreshold;
+        this.reference = new int[GRID * GRID];
+        this.current = new int[GRID * GRID];
+        this.hasReference = false;
+        this.framesSinceKeyframe = 0;
+    }
+
+    // For sources without cheap luma access: the interval alone decides.
+    public boolean isKeyframe() {
+        boolean keyframe = keyframeCount == 0 || framesSinceKeyframe + 1 >= keyframeInterval;
+        return record(keyframe);
+    }
+
+    public boolean isKeyframe(YuvFrame frame) {
+        ByteBuffer luma = frame.getYPlane();
+        int rowStride = frame.getYRowStride();
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        long difference = 0;
+        for (int gy = 0; gy < GRID; gy++) {
+            int rowOffset = TensorPreprocessor.sampleIndex(gy, height, GRID) * rowStride;
+            for (int gx = 0; gx < GRID; gx++) {
+                int i = gy * GRID + gx;
+                current[i] = luma.get(rowOffset + TensorPreprocessor.sampleIndex(gx, width, GRID)) & 0xFF;
+                difference += Math.abs(current[i] - reference[i]);
+            }
+        }
+        lastMotion = hasReference ? difference / (255F * GRID * GRID) : 1F;
+        boolean keyframe = !hasReference || lastMotion > motionThreshold || framesSinceKeyframe + 1 >= keyframeInterval;
+        if (keyframe) {
+            System.arraycopy(current, 0, reference, 0, current.length);
+            hasReference = true;
+        }
+        return record(keyframe);
+    }
+
+    // Motion measured on the last YUV frame, relative to the last keyframe.
+    public float getLastMotion() {
+        return lastMotion;
+    }
+
+    public long getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    public long getTrackedCount() {
+        return trackedCount;
+    }
+
+    private boolean record(boolean keyframe) {
+        if (keyframe) {
+            framesSinceKeyframe = 0;
+            keyframeCount++;
+        } else {
+            framesSinceKeyframe++;
+            trackedCount++;
+        }
+        return keyframe;
+    }
+
+    private static final int GRID = 16;
+}
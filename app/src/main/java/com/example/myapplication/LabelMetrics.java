@@ -0,0 +1,74 @@
+package com.example.myapplication;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Text extents of the class labels, keyed by class id. Labels are fixed once the detector is
+// set up, so they are measured once instead of with getTextBounds on every draw. A class whose
+// name differs from the one measured (or that was never measured) is measured on first use.
+// Safe to use from the detection thread while the UI thread draws.
+public class LabelMetrics {
+    private final Paint paint;
+    private final Rect bounds;
+    private String[] names;
+    private float[] widths;
+    private float[] heights;
+
+    // paint is copied, so later changes to the caller's paint do not race with measuring.
+    public LabelMetrics(Paint paint) {
+        this.paint = paint == null ? null : new Paint(paint);
+        this.bounds = new Rect();
+        this.names = new String[0];
+        this.widths = new float[0];
+        this.heights = new float[0];
+    }
+
+    public static LabelMetrics measure(List<String> labels, Paint paint) {
+        LabelMetrics metrics = new LabelMetrics(paint);
+        for (int i = 0; i < labels.size(); i++) {
+            metrics.ensure(i, labels.get(i));
+        }
+        return metrics;
+    }
+
+    public synchronized float getWidth(int cls, String name) {
+        // Index first: ensure() may replace the array.
+        int i = ensure(cls, name);
+        return widths[i];
+    }
+
+    public synchronized float getHeight(int cls, String name) {
+        int i = ensure(cls, name);
+        return heights[i];
+    }
+
+    // Records known extents, for callers (and tests) that measured text some other way.
+    synchronized void put(int cls, String name, float width, float height) {
+        int i = ensure(cls, null);
+        names[i] = name;
+        widths[i] = width;
+        heights[i] = height;
+    }
+
+    private int ensure(int cls, String name) {
+        int i = Math.max(0, cls);
+        if (i >= names.length) {
+            int size = Math.max(i + 1, names.length * 2);
+            names = Arrays.copyOf(names, size);
+            widths = Arrays.copyOf(widths, size);
+            heights = Arrays.copyOf(heights, size);
+        }
+        if (name != null && !name.equals(names[i])) {
+            names[i] = name;
+            if (paint != null) {
+                paint.getTextBounds(name, 0, name.length(), bounds);
+                widths[i] = bounds.width();
+                heights[i] = bounds.height();
+            }
+        }
+        return i;
+    }
+}
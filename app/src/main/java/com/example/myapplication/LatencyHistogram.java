@@ -0,0 +1,117 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Keeps the most recent samples of one latency in a fixed ring. Recording claims a slot with a
+// single atomic increment and never blocks or allocates, so it is safe on the camera and
+// detection threads and from several threads at once. Percentiles are only worked out when a
+// snapshot is taken; a sample overwritten during the copy just shows up as its newer value.
+public class LatencyHistogram {
+    private final AtomicLongArray samples;
+    private final AtomicLong cursor;
+    private final int mask;
+
+    public LatencyHistogram() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // The capacity is rounded up to a power of two.
+    public LatencyHistogram(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.samples = new AtomicLongArray(size);
+        this.cursor = new AtomicLong();
+        this.mask = size - 1;
+    }
+
+    public void record(long nanos) {
+        long index = cursor.getAndIncrement();
+        samples.lazySet((int) (index & mask), nanos);
+    }
+
+    // Samples recorded since creation or the last reset, including those no longer in the ring.
+    public long getCount() {
+        return cursor.get();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public void reset() {
+        cursor.set(0);
+    }
+
+    public Stats snapshot() {
+        long count = cursor.get();
+        int size = (int) Math.min(count, mask + 1);
+        long[] window = new long[size];
+        for (int i = 0; i < size; i++) {
+            window[i] = samples.get(i);
+        }
+        return new Stats(count, window);
+    }
+
+    // Distribution of the samples that were in the ring when the snapshot was taken.
+    public static class Stats {
+        private final long count;
+        private final int windowSize;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long meanNanos;
+
+        Stats(long count, long[] window) {
+            Arrays.sort(window);
+            long sum = 0;
+            for (long sample : window) {
+                sum += sample;
+            }
+            this.count = count;
+            this.windowSize = window.length;
+            this.p50Nanos = percentile(window, 0.5);
+            this.p90Nanos = percentile(window, 0.9);
+            this.p99Nanos = percentile(window, 0.99);
+            this.maxNanos = window.length == 0 ? 0 : window[window.length - 1];
+            this.meanNanos = window.length == 0 ? 0 : sum / window.length;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) return 0;
+            return sorted[Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+    }
+
+    // About 17 s of history at 30 fps.
+    private static final int DEFAULT_CAPACITY = 512;
+}
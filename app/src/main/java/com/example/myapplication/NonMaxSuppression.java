@@ -0,0 +1,324 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+public class NonMaxSuppression {
+    private DetectorConfig config;
+    private long[] sortKeys;
+    private int[] order;
+    private float[] sortedX1;
+    private float[] sortedY1;
+    private float[] sortedX2;
+    private float[] sortedY2;
+    private float[] areas;
+    private float[] scores;
+    private float[] offsets;
+    private boolean[] suppressed;
+    private int[] visited;
+    private int visitStamp;
+    private SpatialGrid grid;
+    private long[] totalNanos;
+    private int[] runs;
+
+    public NonMaxSuppression(DetectorConfig config) {
+        this.config = config;
+        this.sortKeys = new long[0];
+        this.order = new int[0];
+        this.sortedX1 = new float[0];
+        this.sortedY1 = new float[0];
+        this.sortedX2 = new float[0];
+        this.sortedY2 = new float[0];
+        this.areas = new float[0];
+        this.scores = new float[0];
+        this.offsets = new float[0];
+        this.suppressed = new boolean[0];
+        this.visited = new int[0];
+        this.visitStamp = 0;
+        this.grid = new SpatialGrid();
+        this.totalNanos = new long[DetectorConfig.NmsMode.values().length];
+        this.runs = new int[DetectorConfig.NmsMode.values().length];
+    }
+
+    public NonMaxSuppression(float iouThreshold, int maxDetections, int topK) {
+        this(new DetectorConfig());
+        config.setIouThreshold(iouThreshold);
+        config.setMaxDetections(maxDetections);
+        config.setNmsTopK(topK);
+    }
+
+    public DetectorConfig getConfig() {
+        return config;
+    }
+
+    public int apply(DetectionBuffer boxes, DetectionBuffer out) {
+        DetectorConfig.NmsMode mode = config.getNmsMode();
+        long start = System.nanoTime();
+        out.clear();
+        int count = sortByConfidence(boxes, mode == DetectorConfig.NmsMode.CLASS_AWARE);
+        if (mode == DetectorConfig.NmsMode.SOFT_LINEAR || mode == DetectorConfig.NmsMode.SOFT_GAUSSIAN) {
+            applySoft(boxes, out, count, mode == DetectorConfig.NmsMode.SOFT_GAUSSIAN);
+        } else if (config.isSpatialIndexEnabled() && count >= GRID_MIN_CANDIDATES && config.getIouThreshold() > 0F) {
+            applyHardWithGrid(boxes, out, count);
+        } else {
+            applyHard(boxes, out, count);
+        }
+        totalNanos[mode.ordinal()] += System.nanoTime() - start;
+        runs[mode.ordinal()]++;
+        return out.size();
+    }
+
+    public long getAverageNanos(DetectorConfig.NmsMode mode) {
+        int count = runs[mode.ordinal()];
+        return count == 0 ? 0 : totalNanos[mode.ordinal()] / count;
+    }
+
+    public int getRunCount(DetectorConfig.NmsMode mode) {
+        return runs[mode.ordinal()];
+    }
+
+    public void resetTimings() {
+        Arrays.fill(totalNanos, 0);
+        Arrays.fill(runs, 0);
+    }
+
+    // Greedy NMS over confidence-sorted indices. Everything before i has been selected and
+    // everything after it is still alive, so each pass only visits unsuppressed candidates.
+    // Selected boxes are written to out by descending confidence, ties keeping input order.
+    private void applyHard(DetectionBuffer boxes, DetectionBuffer out, int count) {
+        float iouThreshold = config.getIouThreshold();
+        int maxDetections = config.getMaxDetections();
+        boolean positiveThreshold = iouThreshold > 0F;
+        for (int i = 0; i < count; i++) {
+            out.add(boxes, order[i]);
+            if (out.size() >= maxDetections) break;
+            float x1 = sortedX1[i];
+            float y1 = sortedY1[i];
+            float x2 = sortedX2[i];
+            float y2 = sortedY2[i];
+            float area = areas[i];
+            int alive = i + 1;
+            for (int j = i + 1; j < count; j++) {
+                float bx1 = sortedX1[j];
+                float by1 = sortedY1[j];
+                float bx2 = sortedX2[j];
+                float by2 = sortedY2[j];
+                // Disjoint boxes have an IoU of zero, which only a non-positive threshold suppresses.
+                boolean disjoint = positiveThreshold && (bx1 >= x2 || bx2 <= x1 || by1 >= y2 || by2 <= y1);
+                if (!disjoint && calculateIoU(x1, y1, x2, y2, area, bx1, by1, bx2, by2, areas[j]) >= iouThreshold) {
+                    continue;
+                }
+                if (alive != j) {
+                    moveCandidate(j, alive);
+                }
+                alive++;
+            }
+            count = alive;
+        }
+    }
+
+    // Same selection as applyHard, but each selected box is only compared with candidates that
+    // share a grid cell with it. Boxes in disjoint cells cannot overlap, so with a positive IoU
+    // threshold they could never suppress each other and the output is identical.
+    private void applyHardWithGrid(DetectionBuffer boxes, DetectionBuffer out, int count) {
+        float iouThreshold = config.getIouThreshold();
+        int maxDetections = config.getMaxDetections();
+        int gridSize = max(1, min(MAX_GRID_SIZE, (int) Math.sqrt(count / 2.0)));
+        grid.build(sortedX1, sortedY1, sortedX2, sortedY2, offsets, count, gridSize);
+        int columns = grid.getColumns();
+        for (int i = 0; i < count; i++) {
+            suppressed[i] = false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (suppressed[i]) continue;
+            out.add(boxes, order[i]);
+            if (out.size() >= maxDetections) break;
+            float x1 = sortedX1[i];
+            float y1 = sortedY1[i];
+            float x2 = sortedX2[i];
+            float y2 = sortedY2[i];
+            float area = areas[i];
+            float offset = offsets[i];
+            int col1 = grid.column(x1 - offset), col2 = grid.column(x2 - offset);
+            int row1 = grid.row(y1 - offset), row2 = grid.row(y2 - offset);
+            // A candidate spanning several cells is seen once per cell; the stamp skips repeats.
+            int stamp = nextVisitStamp();
+            for (int r = row1; r <= row2; r++) {
+                for (int c = col1; c <= col2; c++) {
+                    int cell = r * columns + c;
+                    int end = grid.getCellEnd(cell);
+                    for (int k = grid.getCellStart(cell); k < end; k++) {
+                        int j = grid.getItem(k);
+                        if (j <= i || suppressed[j] || visited[j] == stamp) continue;
+                        visited[j] = stamp;
+                        float bx1 = sortedX1[j];
+                        float by1 = sortedY1[j];
+                        float bx2 = sortedX2[j];
+                        float by2 = sortedY2[j];
+                        if (bx1 >= x2 || bx2 <= x1 || by1 >= y2 || by2 <= y1) continue;
+                        if (calculateIoU(x1, y1, x2, y2, area, bx1, by1, bx2, by2, areas[j]) >= iouThreshold) {
+                            suppressed[j] = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int nextVisitStamp() {
+        visitStamp++;
+        if (visitStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+        return visitStamp;
+    }
+
+    // Soft-NMS (Bodla et al.): overlapping boxes have their confidence decayed rather than being
+    // removed, linearly by (1 - IoU) above the IoU threshold or by a Gaussian of the IoU. Decayed
+    // scores reorder the candidates, so the next box is found by a scan instead of the sort order.
+    private void applySoft(DetectionBuffer boxes, DetectionBuffer out, int count, boolean gaussian) {
+        float iouThreshold = config.getIouThreshold();
+        float sigma = config.getSoftNmsSigma();
+        float scoreThreshold = config.getSoftNmsScoreThreshold();
+        int maxDetections = config.getMaxDetections();
+        for (int i = 0; i < count; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            if (best != i) {
+                swapCandidates(i, best);
+            }
+            int selected = out.add(boxes, order[i]);
+            out.setCnf(selected, scores[i]);
+            if (out.size() >= maxDetections) break;
+            float x1 = sortedX1[i];
+            float y1 = sortedY1[i];
+            float x2 = sortedX2[i];
+            float y2 = sortedY2[i];
+            float area = areas[i];
+            int alive = i + 1;
+            for (int j = i + 1; j < count; j++) {
+                float bx1 = sortedX1[j];
+                float by1 = sortedY1[j];
+                float bx2 = sortedX2[j];
+                float by2 = sortedY2[j];
+                if (bx1 < x2 && bx2 > x1 && by1 < y2 && by2 > y1) {
+                    float iou = calculateIoU(x1, y1, x2, y2, area, bx1, by1, bx2, by2, areas[j]);
+                    float weight;
+                    if (gaussian) {
+                        weight = (float) Math.exp(-(iou * iou) / sigma);
+                    } else {
+                        weight = iou > iouThreshold ? 1F - iou : 1F;
+                    }
+                    scores[j] *= weight;
+                    if (scores[j] < scoreThreshold) continue;
+                }
+                if (alive != j) {
+                    moveCandidate(j, alive);
+                }
+                alive++;
+            }
+            count = alive;
+        }
+    }
+
+    // Fills order[] with box indices by descending confidence, truncated to topK, and lays the
+    // coordinates out in that order so the suppression loops read memory sequentially. In
+    // class-aware mode each class is shifted onto its own diagonal tile so boxes of different
+    // classes can never overlap, which lets one pass do per-class NMS.
+    private int sortByConfidence(DetectionBuffer boxes, boolean classAware) {
+        int size = boxes.size();
+        ensureCapacity(size);
+        float maxCoordinate = 0F;
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = ((long) ~sortableBits(boxes.getCnf(i)) << 32) | i;
+            if (classAware) {
+                maxCoordinate = max(maxCoordinate, max(boxes.getX2(i), boxes.getY2(i)));
+            }
+        }
+        Arrays.sort(sortKeys, 0, size);
+        int count = min(size, config.getNmsTopK());
+        for (int i = 0; i < count; i++) {
+            int index = (int) sortKeys[i];
+            float offset = classAware ? boxes.getCls(index) * (maxCoordinate + 1F) : 0F;
+            order[i] = index;
+            sortedX1[i] = boxes.getX1(index) + offset;
+            sortedY1[i] = boxes.getY1(index) + offset;
+            sortedX2[i] = boxes.getX2(index) + offset;
+            sortedY2[i] = boxes.getY2(index) + offset;
+            areas[i] = boxes.getW(index) * boxes.getH(index);
+            scores[i] = boxes.getCnf(index);
+            offsets[i] = offset;
+        }
+        return count;
+    }
+
+    private void moveCandidate(int from, int to) {
+        order[to] = order[from];
+        sortedX1[to] = sortedX1[from];
+        sortedY1[to] = sortedY1[from];
+        sortedX2[to] = sortedX2[from];
+        sortedY2[to] = sortedY2[from];
+        areas[to] = areas[from];
+        scores[to] = scores[from];
+    }
+
+    private void swapCandidates(int a, int b) {
+        int index = order[a];
+        order[a] = order[b];
+        order[b] = index;
+        swap(sortedX1, a, b);
+        swap(sortedY1, a, b);
+        swap(sortedX2, a, b);
+        swap(sortedY2, a, b);
+        swap(areas, a, b);
+        swap(scores, a, b);
+    }
+
+    private void ensureCapacity(int size) {
+        if (sortKeys.length >= size) return;
+        sortKeys = new long[size];
+        order = new int[size];
+        sortedX1 = new float[size];
+        sortedY1 = new float[size];
+        sortedX2 = new float[size];
+        sortedY2 = new float[size];
+        areas = new float[size];
+        scores = new float[size];
+        offsets = new float[size];
+        suppressed = new boolean[size];
+        visited = new int[size];
+        visitStamp = 0;
+    }
+
+    public static float calculateIoU(float ax1, float ay1, float ax2, float ay2, float areaA,
+                                     float bx1, float by1, float bx2, float by2, float areaB) {
+        float x1 = max(ax1, bx1);
+        float y1 = max(ay1, by1);
+        float x2 = min(ax2, bx2);
+        float y2 = min(ay2, by2);
+        float intersectionArea = max(0F, x2 - x1) * max(0F, y2 - y1);
+        return intersectionArea / (areaA + areaB - intersectionArea);
+    }
+
+    private static void swap(float[] array, int a, int b) {
+        float value = array[a];
+        array[a] = array[b];
+        array[b] = value;
+    }
+
+    // Maps a float to an int whose signed ordering matches the float ordering.
+    static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits < 0 ? bits ^ 0x7fffffff : bits;
+    }
+
+    private static final int GRID_MIN_CANDIDATES = 64;
+    private static final int MAX_GRID_SIZE = 64;
+}
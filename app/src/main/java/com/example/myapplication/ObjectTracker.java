@@ -0,0 +1,273 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+
+// Multi-object tracker for detector output. Every track runs a constant-velocity Kalman filter
+// on each of cx, cy, w and h (position and per-frame velocity, noise scaled by box height, as
+// in SORT/DeepSORT). On keyframes, detections are matched to predicted tracks greedily by IoU,
+// falling back to centre distance for fast movers whose boxes no longer overlap. Between
+// keyframes predict() advances the filters and emits the predicted boxes with stable track ids.
+// Tracks are stored as parallel arrays like DetectionBuffer and nothing is allocated per frame
+// once the arrays have grown.
+public class ObjectTracker {
+    private final float iouThreshold;
+    private final float centroidGate;
+    private final int maxMisses;
+    private int count;
+    private int nextId;
+    private int[] ids;
+    private int[] cls;
+    private String[] clsName;
+    private float[] cnf;
+    private int[] misses;
+    private boolean[] trackMatched;
+    // Per track, STATE_SIZE values: positions of cx, cy, w, h followed by their velocities.
+    private float[] state;
+    // Per track and coordinate, the 2x2 covariance as p00, p01, p11.
+    private float[] covariance;
+    private long[] pairs;
+    private int[] detectionTrack;
+
+    public ObjectTracker() {
+        this(DEFAULT_IOU_THRESHOLD, DEFAULT_CENTROID_GATE, DEFAULT_MAX_MISSES);
+    }
+
+    // maxMisses is the number of keyframes a track survives without a matching detection.
+    public ObjectTracker(float iouThreshold, float centroidGate, int maxMisses) {
+        this.iouThreshold = iouThreshold;
+        this.centroidGate = centroidGate;
+        this.maxMisses = maxMisses;
+        this.count = 0;
+        this.nextId = 0;
+        allocate(INITIAL_CAPACITY);
+        this.pairs = new long[0];
+        this.detectionTrack = new int[0];
+    }
+
+    public int getTrackCount() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    // Keyframe: advances the tracks, matches them against detections and writes the detections,
+    // unchanged but tagged with their track ids, to out.
+    public void update(DetectionBuffer detections, DetectionBuffer out) {
+        predictTracks();
+        int detectionCount = detections.size();
+        if (detectionTrack.length < detectionCount) {
+            detectionTrack = new int[Math.max(detectionCount, detectionTrack.length * 2)];
+        }
+        Arrays.fill(detectionTrack, 0, detectionCount, BoundingBox.NO_TRACK);
+        Arrays.fill(trackMatched, 0, count, false);
+        associate(detections);
+
+        // Drop tracks that have gone unmatched for too long, compacting survivors in place.
+        int kept = 0;
+        for (int t = 0; t < count; t++) {
+            if (!trackMatched[t] && ++misses[t] > maxMisses) continue;
+            if (kept != t) moveTrack(t, kept);
+            kept++;
+        }
+        count = kept;
+
+        for (int d = 0; d < detectionCount; d++) {
+            if (detectionTrack[d] == BoundingBox.NO_TRACK) {
+                detectionTrack[d] = startTrack(detections, d);
+            }
+        }
+        out.clear();
+        for (int d = 0; d < detectionCount; d++) {
+            int i = out.add(detections, d);
+            out.setTrackId(i, detectionTrack[d]);
+        }
+    }
+
+    // In-between frame: advances the tracks and writes those matched on the last keyframe.
+    public void predict(DetectionBuffer out) {
+        predictTracks();
+        out.clear();
+        for (int t = 0; t < count; t++) {
+            if (misses[t] != 0) continue;
+            int s = t * STATE_SIZE;
+            float cx = state[s], cy = state[s + 1], w = state[s + 2], h = state[s + 3];
+            int i = out.add(cx - w / 2F, cy - h / 2F, cx + w / 2F, cy + h / 2F, cx, cy, w, h, cnf[t], cls[t], clsName[t]);
+            out.setTrackId(i, ids[t]);
+        }
+    }
+
+    private void predictTracks() {
+        for (int t = 0; t < count; t++) {
+            int s = t * STATE_SIZE;
+            float height = state[s + 3];
+            float positionNoise = square(POSITION_NOISE * height);
+            float velocityNoise = square(VELOCITY_NOISE * height);
+            for (int c = 0; c < COORDINATES; c++) {
+                int p = (t * COORDINATES + c) * 3;
+                state[s + c] += state[s + COORDINATES + c];
+                float p01 = covariance[p + 1], p11 = covariance[p + 2];
+                covariance[p] += 2F * p01 + p11 + positionNoise;
+                covariance[p + 1] = p01 + p11;
+                covariance[p + 2] = p11 + velocityNoise;
+            }
+            state[s + 2] = Math.max(state[s + 2], MIN_SIZE);
+            state[s + 3] = Math.max(state[s + 3], MIN_SIZE);
+        }
+    }
+
+    private void associate(DetectionBuffer detections) {
+        int detectionCount = detections.size();
+        int needed = count * detectionCount;
+        if (pairs.length < needed) {
+            pairs = new long[Math.max(needed, pairs.length * 2)];
+        }
+        // Score 1 + IoU for overlapping pairs and 1 - normalized centre distance otherwise, so
+        // any acceptable overlap outranks a distance match. Distance scores go negative past a
+        // distance of 1, so the keys use NonMaxSuppression.sortableBits to keep their order.
+        int pairCount = 0;
+        for (int t = 0; t < count; t++) {
+            int s = t * STATE_SIZE;
+            float tcx = state[s], tcy = state[s + 1], tw = state[s + 2], th = state[s + 3];
+            float tx1 = tcx - tw / 2F, ty1 = tcy - th / 2F, tx2 = tcx + tw / 2F, ty2 = tcy + th / 2F;
+            for (int d = 0; d < detectionCount; d++) {
+                if (detections.getCls(d) != cls[t]) continue;
+                float iou = NonMaxSuppression.calculateIoU(tx1, ty1, tx2, ty2, tw * th,
+                        detections.getX1(d), detections.getY1(d), detections.getX2(d), detections.getY2(d),
+                        detections.getW(d) * detections.getH(d));
+                float score;
+                if (iou >= iouThreshold) {
+                    score = 1F + iou;
+                } else {
+                    float dx = detections.getCx(d) - tcx, dy = detections.getCy(d) - tcy;
+                    float scale = Math.max(Math.max(tw, th), Math.max(detections.getW(d), detections.getH(d)));
+                    float distance = (float) Math.sqrt(dx * dx + dy * dy) / scale;
+                    if (distance >= centroidGate) continue;
+                    score = 1F - distance;
+                }
+                pairs[pairCount++] = ((long) NonMaxSuppression.sortableBits(score) << 32) | ((long) t << 16) | d;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        for (int k = pairCount - 1; k >= 0; k--) {
+            int t = (int) (pairs[k] >>> 16) & 0xFFFF;
+            int d = (int) pairs[k] & 0xFFFF;
+            if (trackMatched[t] || detectionTrack[d] != BoundingBox.NO_TRACK) continue;
+            trackMatched[t] = true;
+            detectionTrack[d] = ids[t];
+            correct(t, detections, d);
+        }
+    }
+
+    private void correct(int t, DetectionBuffer detections, int d) {
+        int s = t * STATE_SIZE;
+        float measurementNoise = square(MEASUREMENT_NOISE * detections.getH(d));
+        for (int c = 0; c < COORDINATES; c++) {
+            int p = (t * COORDINATES + c) * 3;
+            float p00 = covariance[p], p01 = covariance[p + 1], p11 = covariance[p + 2];
+            float innovation = measurement(detections, d, c) - state[s + c];
+            float k0 = p00 / (p00 + measurementNoise);
+            float k1 = p01 / (p00 + measurementNoise);
+            state[s + c] += k0 * innovation;
+            state[s + COORDINATES + c] += k1 * innovation;
+            covariance[p] = (1F - k0) * p00;
+            covariance[p + 1] = (1F - k0) * p01;
+            covariance[p + 2] = p11 - k1 * p01;
+        }
+        cnf[t] = detections.getCnf(d);
+        clsName[t] = detections.getClsName(d);
+        misses[t] = 0;
+    }
+
+    private int startTrack(DetectionBuffer detections, int d) {
+        if (count == ids.length) {
+            grow();
+        }
+        int t = count++;
+        int s = t * STATE_SIZE;
+        float height = detections.getH(d);
+        for (int c = 0; c < COORDINATES; c++) {
+            int p = (t * COORDINATES + c) * 3;
+            state[s + c] = measurement(detections, d, c);
+            state[s + COORDINATES + c] = 0F;
+            covariance[p] = square(2F * POSITION_NOISE * height);
+            covariance[p + 1] = 0F;
+            covariance[p + 2] = square(10F * VELOCITY_NOISE * height);
+        }
+        ids[t] = nextId++;
+        cls[t] = detections.getCls(d);
+        clsName[t] = detections.getClsName(d);
+        cnf[t] = detections.getCnf(d);
+        misses[t] = 0;
+        trackMatched[t] = true;
+        return ids[t];
+    }
+
+    private static float measurement(DetectionBuffer detections, int d, int coordinate) {
+        switch (coordinate) {
+            case 0:
+                return detections.getCx(d);
+            case 1:
+                return detections.getCy(d);
+            case 2:
+                return detections.getW(d);
+            default:
+                return detections.getH(d);
+        }
+    }
+
+    private void moveTrack(int from, int to) {
+        ids[to] = ids[from];
+        cls[to] = cls[from];
+        clsName[to] = clsName[from];
+        cnf[to] = cnf[from];
+        misses[to] = misses[from];
+        trackMatched[to] = trackMatched[from];
+        System.arraycopy(state, from * STATE_SIZE, state, to * STATE_SIZE, STATE_SIZE);
+        System.arraycopy(covariance, from * COVARIANCE_SIZE, covariance, to * COVARIANCE_SIZE, COVARIANCE_SIZE);
+    }
+
+    private void grow() {
+        int[] oldIds = ids, oldCls = cls, oldMisses = misses;
+        String[] oldClsName = clsName;
+        float[] oldCnf = cnf, oldState = state, oldCovariance = covariance;
+        boolean[] oldMatched = trackMatched;
+        allocate(ids.length * 2);
+        System.arraycopy(oldIds, 0, ids, 0, count);
+        System.arraycopy(oldCls, 0, cls, 0, count);
+        System.arraycopy(oldMisses, 0, misses, 0, count);
+        System.arraycopy(oldClsName, 0, clsName, 0, count);
+        System.arraycopy(oldCnf, 0, cnf, 0, count);
+        System.arraycopy(oldMatched, 0, trackMatched, 0, count);
+        System.arraycopy(oldState, 0, state, 0, count * STATE_SIZE);
+        System.arraycopy(oldCovariance, 0, covariance, 0, count * COVARIANCE_SIZE);
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        cls = new int[capacity];
+        clsName = new String[capacity];
+        cnf = new float[capacity];
+        misses = new int[capacity];
+        trackMatched = new boolean[capacity];
+        state = new float[capacity * STATE_SIZE];
+        covariance = new float[capacity * COVARIANCE_SIZE];
+    }
+
+    private static float square(float value) {
+        return value * value;
+    }
+
+    private static final int COORDINATES = 4;
+    private static final int STATE_SIZE = COORDINATES * 2;
+    private static final int COVARIANCE_SIZE = COORDINATES * 3;
+    private static final int INITIAL_CAPACITY = 32;
+    private static final float POSITION_NOISE = 1F / 20F;
+    private static final float VELOCITY_NOISE = 1F / 160F;
+    private static final float MEASUREMENT_NOISE = 1F / 20F;
+    private static final float MIN_SIZE = 1e-4F;
+    private static final float DEFAULT_IOU_THRESHOLD = 0.3F;
+    private static final float DEFAULT_CENTROID_GATE = 1.5F;
+    private static final int DEFAULT_MAX_MISSES = 2;
+}
@@ -0,0 +1,143 @@
+package com.example.myapplication;
+
+import android.content.Context;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Headless detection over recorded footage or an image folder. The calling thread decodes
+// frames lazily into a small ring of reusable buffers and fans them out over a DetectorPool;
+// results are handed to the sink in frame order as soon as each frame and all frames before it
+// are done, so memory stays bounded by the number of frames in flight, not the clip length.
+public class OfflineProcessor {
+    private final DetectorPool pool;
+    private final FrameDecoder decoder;
+    private final DetectionSink sink;
+    private final int maxInFlight;
+    private final ArrayDeque<Pending> free;
+    private final ArrayDeque<Pending> inFlight;
+    private long processedFrames;
+    private long detectionCount;
+    private long elapsedNanos;
+
+    public OfflineProcessor(DetectorPool pool, FrameDecoder decoder, DetectionSink sink) {
+        // Two frames per detector: one being detected and one decoded and waiting.
+        this(pool, decoder, sink, 2 * pool.getSize());
+    }
+
+    public OfflineProcessor(DetectorPool pool, FrameDecoder decoder, DetectionSink sink, int maxInFlight) {
+        this.pool = pool;
+        this.decoder = decoder;
+        this.sink = sink;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.free = new ArrayDeque<>();
+        this.inFlight = new ArrayDeque<>();
+        for (int i = 0; i < this.maxInFlight; i++) {
+            free.add(new Pending());
+        }
+    }
+
+    // Processes every frame the decoder yields and returns the number of frames processed.
+    // The decoder and sink are left open.
+    public long run() throws IOException, InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                if (free.isEmpty()) {
+                    drainHead();
+                }
+                Pending pending = free.poll();
+                if (!decoder.next(pending.frame)) {
+                    free.add(pending);
+                    break;
+                }
+                DecodedFrame frame = pending.frame;
+                DetectionBuffer results = pending.results;
+                pending.future = pool.submit(detector -> {
+                    detector.detect(frame.getPixels(), frame.getWidth(), frame.getHeight(), 0F, 0F, 1F, 1F, results);
+                    return results;
+                });
+                inFlight.add(pending);
+                // Write out whatever has already finished without waiting for the rest.
+                while (!inFlight.isEmpty() && inFlight.peek().future.isDone()) {
+                    drainHead();
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                drainHead();
+            }
+        } finally {
+            elapsedNanos += System.nanoTime() - start;
+        }
+        return processedFrames;
+    }
+
+    private void drainHead() throws IOException, InterruptedException, ExecutionException {
+        Pending pending = inFlight.poll();
+        DetectionBuffer results = pending.future.get();
+        sink.write(pending.frame.getIndex(), pending.frame.getTimestampUs(), results);
+        processedFrames++;
+        detectionCount += results.size();
+        pending.future = null;
+        free.add(pending);
+    }
+
+    public long getProcessedFrames() {
+        return processedFrames;
+    }
+
+    public long getDetectionCount() {
+        return detectionCount;
+    }
+
+    // Frames per second of wall time spent in run(), decoding and writing included.
+    public float getFramesPerSecond() {
+        return elapsedNanos == 0 ? 0F : processedFrames * 1e9F / elapsedNanos;
+    }
+
+    // Entry point for headless runs: input is a directory of images or a video file. Detections
+    // are streamed to output as a binary detection log (see DetectionLogReader), or as CSV when
+    // the output name ends in .csv. Returns the frames per second achieved.
+    public static float process(Context context, File input, File output, int workers, int threadsPerWorker)
+            throws IOException, InterruptedException, ExecutionException {
+        DetectorPool pool = DetectorPool.create(context, Constants.MODEL_PATH, Constants.LABELS_PATH,
+                new DetectorConfig(), workers, threadsPerWorker);
+        try (FrameDecoder decoder = input.isDirectory()
+                ? new ImageFolderDecoder(input)
+                : new VideoFileDecoder(input.getPath(), MAX_VIDEO_SIDE);
+             DetectionSink sink = createSink(output, pool.getLabels())) {
+            OfflineProcessor processor = new OfflineProcessor(pool, decoder, sink);
+            processor.run();
+            return processor.getFramesPerSecond();
+        } finally {
+            pool.close();
+        }
+    }
+
+    private static DetectionSink createSink(File output, List<String> labels) throws IOException {
+        if (!output.getName().endsWith(".csv")) {
+            return new DetectionLogWriter(output, labels);
+        }
+        CsvDetectionSink sink = new CsvDetectionSink(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)));
+        sink.writeHeader();
+        return sink;
+    }
+
+    private static class Pending {
+        private final DecodedFrame frame = new DecodedFrame();
+        private final DetectionBuffer results = new DetectionBuffer();
+        private Future<DetectionBuffer> future;
+    }
+
+    // Enough for a 640 px model input with room for ROI or tiled runs on the decoded frames.
+    private static final int MAX_VIDEO_SIDE = 1920;
+}
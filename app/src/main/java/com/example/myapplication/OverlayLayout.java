@@ -0,0 +1,162 @@
+package com.example.myapplication;
+
+// Screen-space geometry of one frame of overlay boxes and labels. ResultDispatcher builds it on
+// the detection thread, so OverlayView.onDraw only issues draw calls: no coordinate math, text
+// measuring or allocation on the UI thread. Box outlines are also kept as line segments, so a
+// backend can stroke every box with a single drawLines call.
+public class OverlayLayout {
+    private float[] boxes;
+    private float[] lines;
+    private float[] labels;
+    private int[] classIds;
+    private String[] names;
+    private int count;
+    private int width;
+    private int height;
+
+    public OverlayLayout() {
+        this.boxes = new float[0];
+        this.lines = new float[0];
+        this.labels = new float[0];
+        this.classIds = new int[0];
+        this.names = new String[0];
+        this.count = 0;
+    }
+
+    // Lays out normalized detections for a width x height view. Each label sits in the box's top
+    // left corner on a background padding wider and taller than its text.
+    public void build(DetectionBuffer detections, int width, int height, LabelMetrics metrics, float padding) {
+        int size = detections.size();
+        ensureCapacity(size);
+        count = size;
+        this.width = width;
+        this.height = height;
+        for (int i = 0; i < size; i++) {
+            float x1 = detections.getX1(i) * width;
+            float y1 = detections.getY1(i) * height;
+            float x2 = detections.getX2(i) * width;
+            float y2 = detections.getY2(i) * height;
+            int cls = detections.getCls(i);
+            String name = detections.getClsName(i);
+            float textWidth = metrics.getWidth(cls, name);
+            float textHeight = metrics.getHeight(cls, name);
+            boxes[i * 4] = x1;
+            boxes[i * 4 + 1] = y1;
+            boxes[i * 4 + 2] = x2;
+            boxes[i * 4 + 3] = y2;
+            setLines(i, x1, y1, x2, y2);
+            // Background rectangle, then the text baseline.
+            labels[i * 6] = x1;
+            labels[i * 6 + 1] = y1;
+            labels[i * 6 + 2] = x1 + textWidth + padding;
+            labels[i * 6 + 3] = y1 + textHeight + padding;
+            labels[i * 6 + 4] = x1;
+            labels[i * 6 + 5] = y1 + textHeight;
+            classIds[i] = cls;
+            names[i] = name;
+        }
+    }
+
+    // Makes this an independent copy of other, e.g. to hand a frame to another thread.
+    public void copyFrom(OverlayLayout other) {
+        ensureCapacity(other.count);
+        count = other.count;
+        System.arraycopy(other.boxes, 0, boxes, 0, count * 4);
+        System.arraycopy(other.lines, 0, lines, 0, count * 16);
+        System.arraycopy(other.labels, 0, labels, 0, count * 6);
+        System.arraycopy(other.classIds, 0, classIds, 0, count);
+        System.arraycopy(other.names, 0, names, 0, count);
+        width = other.width;
+        height = other.height;
+    }
+
+    private void ensureCapacity(int size) {
+        if (classIds.length >= size) return;
+        int capacity = Math.max(size, classIds.length * 2);
+        boxes = new float[capacity * 4];
+        lines = new float[capacity * 16];
+        labels = new float[capacity * 6];
+        classIds = new int[capacity];
+        names = new String[capacity];
+    }
+
+    // Top, right, bottom and left edges of box i as x0, y0, x1, y1 each.
+    private void setLines(int i, float x1, float y1, float x2, float y2) {
+        int l = i * 16;
+        lines[l] = x1;
+        lines[l + 1] = y1;
+        lines[l + 2] = x2;
+        lines[l + 3] = y1;
+        lines[l + 4] = x2;
+        lines[l + 5] = y1;
+        lines[l + 6] = x2;
+        lines[l + 7] = y2;
+        lines[l + 8] = x2;
+        lines[l + 9] = y2;
+        lines[l + 10] = x1;
+        lines[l + 11] = y2;
+        lines[l + 12] = x1;
+        lines[l + 13] = y2;
+        lines[l + 14] = x1;
+        lines[l + 15] = y1;
+    }
+
+    // True when drawing either layout would produce the same pixels. Layouts built for different
+    // view sizes never match, even when empty, so a resize is always redrawn.
+    public boolean sameAs(OverlayLayout other) {
+        if (count != other.count || width != other.width || height != other.height) return false;
+        for (int i = 0; i < count; i++) {
+            if (classIds[i] != other.classIds[i] || !names[i].equals(other.names[i])) return false;
+        }
+        return rangeEquals(boxes, other.boxes, count * 4) && rangeEquals(labels, other.labels, count * 6);
+    }
+
+    private static boolean rangeEquals(float[] a, float[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        count = 0;
+        width = 0;
+        height = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Box i as left, top, right, bottom at offset 4 * i.
+    public float[] getBoxes() {
+        return boxes;
+    }
+
+    // The four edges of box i at offset 16 * i, for Canvas.drawLines(lines, 0, 16 * size(), paint).
+    public float[] getLines() {
+        return lines;
+    }
+
+    // Label i at offset 6 * i: background left, top, right, bottom, then text x and baseline y.
+    public float[] getLabels() {
+        return labels;
+    }
+
+    public int getClassId(int i) {
+        return classIds[i];
+    }
+
+    public String getName(int i) {
+        return names[i];
+    }
+
+    // The view size this layout was built for.
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.myapplication;
+
+// A backend that draws overlay layouts for ResultDispatcher: OverlayView on the UI thread, or
+// SurfaceOverlayView on its own render thread.
+public interface OverlayRenderer {
+    // The size to lay results out for, readable from the detection thread.
+    int getViewWidth();
+
+    int getViewHeight();
+
+    LabelMetrics getLabelMetrics();
+
+    float getLabelPadding();
+
+    // True if setLayout() copies the layout and may be called from any thread. Otherwise it must
+    // be called on the UI thread and the layout left untouched until the next call.
+    boolean isAsync();
+
+    void setLayout(OverlayLayout layout);
+}
@@ -4,32 +4,47 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
-import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.View;
 import androidx.core.content.ContextCompat;
 
 import com.example.myapplication.R;
 
-import java.util.LinkedList;
 import java.util.List;
 
-public class OverlayView extends View {
-    private List<BoundingBox> results;
+public class OverlayView extends View implements OverlayRenderer {
+    private OverlayLayout layout;
+    private final OverlayLayout uiLayout;
+    private final DetectionBuffer uiResults;
+    private volatile LabelMetrics labelMetrics;
+    private volatile int viewWidth;
+    private volatile int viewHeight;
     private Paint boxPaint;
     private Paint textBackgroundPaint;
     private Paint textPaint;
-    private Rect bounds;
+    private PipelineMetrics metrics;
+    private boolean hudEnabled;
+    private Paint hudPaint;
+    private Paint hudBackgroundPaint;
+    private String[] hudLines;
+    private float hudWidth;
+    private long hudUpdatedAt;
 
     public OverlayView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        results = new LinkedList<>();
+        layout = new OverlayLayout();
+        uiLayout = new OverlayLayout();
+        uiResults = new DetectionBuffer();
         boxPaint = new Paint();
         textBackgroundPaint = new Paint();
         textPaint = new Paint();
-        bounds = new Rect();
+        hudPaint = new Paint();
+        hudBackgroundPaint = new Paint();
+        hudLines = new String[0];
         initPaints();
+        labelMetrics = new LabelMetrics(textBackgroundPaint);
     }
 
     public void clear() {
@@ -50,38 +65,144 @@ public class OverlayView extends View {
         boxPaint.setColor(ContextCompat.getColor(getContext(), R.color.bounding_box_color));
         boxPaint.setStrokeWidth(8F);
         boxPaint.setStyle(Paint.Style.STROKE);
+        hudPaint.setColor(Color.WHITE);
+        hudPaint.setTextSize(HUD_TEXT_SIZE);
+        hudPaint.setTypeface(Typeface.MONOSPACE);
+        hudPaint.setAntiAlias(true);
+        hudBackgroundPaint.setColor(HUD_BACKGROUND_COLOR);
+        hudBackgroundPaint.setStyle(Paint.Style.FILL);
+    }
+
+    // Measures every label once; call when the detector's labels are known.
+    public void setLabels(List<String> labels) {
+        labelMetrics = LabelMetrics.measure(labels, textBackgroundPaint);
+    }
+
+    @Override
+    public LabelMetrics getLabelMetrics() {
+        return labelMetrics;
+    }
+
+    @Override
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    @Override
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    @Override
+    public float getLabelPadding() {
+        return BOUNDING_RECT_TEXT_PADDING;
+    }
+
+    @Override
+    public boolean isAsync() {
+        return false;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        viewWidth = w;
+        viewHeight = h;
+    }
+
+    // Draw times are recorded into metrics as OVERLAY_DRAW; the HUD shows its other stages too.
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isHudEnabled() {
+        return hudEnabled;
+    }
+
+    public void setHudEnabled(boolean hudEnabled) {
+        this.hudEnabled = hudEnabled;
+        hudUpdatedAt = 0;
+        invalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        for (BoundingBox result : results) {
-            float left = result.getX1() * getWidth();
-            float top = result.getY1() * getHeight();
-            float right = result.getX2() * getWidth();
-            float bottom = result.getY2() * getHeight();
-            canvas.drawRect(left, top, right, bottom, boxPaint);
-            String drawableText = result.getClsName();
-            textBackgroundPaint.getTextBounds(drawableText, 0, drawableText.length(), bounds);
-            int textWidth = bounds.width();
-            int textHeight = bounds.height();
-            canvas.drawRect(
-                    left,
-                    top,
-                    left + textWidth + BOUNDING_RECT_TEXT_PADDING,
-                    top + textHeight + BOUNDING_RECT_TEXT_PADDING,
-                    textBackgroundPaint
-            );
-            canvas.drawText(drawableText, left, top + bounds.height(), textPaint);
+        long start = System.nanoTime();
+        float[] boxes = layout.getBoxes();
+        float[] labels = layout.getLabels();
+        int count = layout.size();
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            int l = i * 6;
+            canvas.drawRect(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], boxPaint);
+            canvas.drawRect(labels[l], labels[l + 1], labels[l + 2], labels[l + 3], textBackgroundPaint);
+            canvas.drawText(layout.getName(i), labels[l + 4], labels[l + 5], textPaint);
+        }
+        if (metrics == null) return;
+        // Only frames with boxes, so HUD-only redraws while the surface backend is active do
+        // not dilute the comparison.
+        if (count > 0) {
+            metrics.record(PipelineMetrics.Stage.OVERLAY_DRAW, System.nanoTime() - start);
+        }
+        if (hudEnabled) {
+            drawHud(canvas);
         }
     }
 
+    // Percentiles are recomputed at most every HUD_REFRESH_MILLIS; the redraw is scheduled
+    // here so the HUD keeps updating when no new results arrive.
+    private void drawHud(Canvas canvas) {
+        long now = SystemClock.uptimeMillis();
+        if (now - hudUpdatedAt >= HUD_REFRESH_MILLIS) {
+            hudLines = metrics.snapshot().format();
+            hudWidth = 0F;
+            for (String line : hudLines) {
+                hudWidth = Math.max(hudWidth, hudPaint.measureText(line));
+            }
+            hudUpdatedAt = now;
+        }
+        float lineHeight = hudPaint.getTextSize() * 1.2F;
+        canvas.drawRect(0F, 0F, hudWidth + 2 * HUD_PADDING, hudLines.length * lineHeight + 2 * HUD_PADDING,
+                hudBackgroundPaint);
+        for (int i = 0; i < hudLines.length; i++) {
+            canvas.drawText(hudLines[i], HUD_PADDING, HUD_PADDING + (i + 1) * lineHeight - lineHeight * 0.25F, hudPaint);
+        }
+        postInvalidateDelayed(HUD_REFRESH_MILLIS);
+    }
+
     public void setResults(List<BoundingBox> boundingBoxes) {
-        results = boundingBoxes;
+        uiResults.setBoundingBoxes(boundingBoxes);
+        setResults(uiResults);
+    }
+
+    // Must be called on the UI thread; lays the detections out here. ResultDispatcher instead
+    // builds layouts on the detection thread and hands them to setLayout().
+    public void setResults(DetectionBuffer detections) {
+        uiLayout.build(detections, getWidth(), getHeight(), labelMetrics, BOUNDING_RECT_TEXT_PADDING);
+        layout = uiLayout;
+        invalidate();
+    }
+
+    // Must be called on the UI thread. The view draws from the layout until the next call, so
+    // the caller must not modify it until then. The whole view is invalidated, since hardware
+    // accelerated windows ignore dirty rectangles; the saving comes from callers skipping
+    // unchanged layouts.
+    @Override
+    public void setLayout(OverlayLayout next) {
+        layout = next;
         invalidate();
     }
 
     private static final int BOUNDING_RECT_TEXT_PADDING = 8;
+    private static final long HUD_REFRESH_MILLIS = 500;
+    private static final float HUD_TEXT_SIZE = 28F;
+    private static final float HUD_PADDING = 12F;
+    private static final int HUD_BACKGROUND_COLOR = 0xA0000000;
 }
 
 
@@ -0,0 +1,35 @@
+package com.example.myapplication;
+
+// Hands source frames to the detection pipeline. Live frames pass the governor's stride first,
+// so skipped frames are released without entering the pipeline. A lossless source (a replay as
+// fast as possible) bypasses the governor: its stride follows measured latency, so it would
+// drop a different set of frames on every run.
+public class PipelineFeeder implements FrameSource.Listener {
+    private final DetectionPipeline<SourceFrame, ?> pipeline;
+    private final InferenceGovernor governor;
+    private final boolean lossless;
+    private final Runnable onEnd;
+
+    // governor may be null; onEnd runs on the source's thread once it has no more frames.
+    public PipelineFeeder(DetectionPipeline<SourceFrame, ?> pipeline, InferenceGovernor governor, boolean lossless,
+                          Runnable onEnd) {
+        this.pipeline = pipeline;
+        this.governor = governor;
+        this.lossless = lossless;
+        this.onEnd = onEnd;
+    }
+
+    @Override
+    public void onFrame(SourceFrame frame) {
+        if (!lossless && governor != null && !governor.shouldProcess()) {
+            frame.release();
+            return;
+        }
+        pipeline.submit(frame);
+    }
+
+    @Override
+    public void onEnd() {
+        onEnd.run();
+    }
+}
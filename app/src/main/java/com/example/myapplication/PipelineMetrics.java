@@ -0,0 +1,84 @@
+package com.example.myapplication;
+
+import java.util.Locale;
+
+// Per-stage latencies of the detection pipeline, one LatencyHistogram each. The detector
+// records preprocess, invoke, decode, NMS and camera-to-result; the overlay backends record their
+// draws under separate stages, so the HUD compares them side by side.
+public class PipelineMetrics {
+    private final LatencyHistogram[] histograms;
+
+    public enum Stage {
+        PREPROCESS,
+        INVOKE,
+        DECODE,
+        NMS,
+        // OverlayView.onDraw on the UI thread.
+        OVERLAY_DRAW,
+        // SurfaceOverlayView on its render thread, from locking the canvas to posting it.
+        OVERLAY_SURFACE,
+        // From the camera's sensor timestamp to the detector handing results to its listener.
+        CAMERA_TO_RESULT
+    }
+
+    public PipelineMetrics() {
+        Stage[] stages = Stage.values();
+        this.histograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    public Snapshot snapshot() {
+        LatencyHistogram.Stats[] stats = new LatencyHistogram.Stats[histograms.length];
+        for (int i = 0; i < histograms.length; i++) {
+            stats[i] = histograms[i].snapshot();
+        }
+        return new Snapshot(stats);
+    }
+
+    public static class Snapshot {
+        private final LatencyHistogram.Stats[] stats;
+
+        Snapshot(LatencyHistogram.Stats[] stats) {
+            this.stats = stats;
+        }
+
+        public LatencyHistogram.Stats get(Stage stage) {
+            return stats[stage.ordinal()];
+        }
+
+        // One line per stage that has samples, in milliseconds, e.g. for the overlay HUD or logcat.
+        public String[] format() {
+            Stage[] stages = Stage.values();
+            int lines = 0;
+            for (LatencyHistogram.Stats stage : stats) {
+                if (stage.getWindowSize() > 0) lines++;
+            }
+            String[] text = new String[lines];
+            int line = 0;
+            for (int i = 0; i < stats.length; i++) {
+                LatencyHistogram.Stats stage = stats[i];
+                if (stage.getWindowSize() == 0) continue;
+                text[line++] = String.format(Locale.ROOT, "%-16s p50 %6.2f  p99 %6.2f  max %6.2f ms",
+                        stages[i].name().toLowerCase(Locale.ROOT), stage.getP50Nanos() / 1e6,
+                        stage.getP99Nanos() / 1e6, stage.getMaxNanos() / 1e6);
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.myapplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Reads a raw dump of planar I420 frames (Y, then U and V at quarter resolution, no padding),
+// the layout written by e.g. `ffmpeg -i clip.mp4 -pix_fmt yuv420p -f rawvideo clip.yuv`.
+// Frames go through the same YuvFrame path as camera images, so replays exercise YuvConverter
+// and the keyframe scheduler's motion check as well.
+public class RawYuvReader implements ReplayFrameSource.Reader {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int frameBytes;
+    private final long frameCount;
+    private final long frameIntervalUs;
+    private long position;
+
+    public RawYuvReader(File path, int width, int height) throws IOException {
+        this(path, width, height, DEFAULT_FRAME_INTERVAL_US);
+    }
+
+    public RawYuvReader(File path, int width, int height, long frameIntervalUs) throws IOException {
+        if (width <= 0 || height <= 0 || width % 2 != 0 || height % 2 != 0) {
+            throw new IOException("I420 frames need a positive, even size: " + width + "x" + height);
+        }
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        this.width = width;
+        this.height = height;
+        this.frameBytes = width * height * 3 / 2;
+        this.frameCount = channel.size() / frameBytes;
+        this.frameIntervalUs = frameIntervalUs;
+        this.position = 0;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public boolean next(ReplayFrame frame) throws IOException {
+        if (position >= frameCount) return false;
+        ByteBuffer buffer = frame.getYuvBuffer(frameBytes);
+        buffer.limit(frameBytes);
+        long offset = position * frameBytes;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Truncated frame " + position);
+            }
+        }
+        int lumaBytes = width * height;
+        int chromaBytes = lumaBytes / 4;
+        frame.getYuvFrame().set(plane(buffer, 0, lumaBytes), plane(buffer, lumaBytes, chromaBytes),
+                plane(buffer, lumaBytes + chromaBytes, chromaBytes), width, width / 2, 1, width, height, 0);
+        frame.getDecodedFrame().setIndex(position);
+        frame.getDecodedFrame().setTimestampUs(position * frameIntervalUs);
+        frame.setYuv(true);
+        position++;
+        return true;
+    }
+
+    private static ByteBuffer plane(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    // 30 fps.
+    private static final long DEFAULT_FRAME_INTERVAL_US = 33333;
+}
@@ -0,0 +1,81 @@
+package com.example.myapplication;
+
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+
+// A frame read back from a recording by a ReplayFrameSource.Reader: ARGB pixels for images and
+// video, or YUV planes for raw YUV dumps, which then take the camera's preprocessing path.
+public class ReplayFrame implements SourceFrame {
+    private final ReplayFrameSource source;
+    private final DecodedFrame decodedFrame;
+    private final YuvFrame yuvFrame;
+    private ByteBuffer yuvBuffer;
+    private boolean yuv;
+    private long emittedAtNanos;
+
+    ReplayFrame(ReplayFrameSource source) {
+        this.source = source;
+        this.decodedFrame = new DecodedFrame();
+        this.yuvFrame = new YuvFrame();
+        this.yuvBuffer = null;
+        this.yuv = false;
+    }
+
+    public DecodedFrame getDecodedFrame() {
+        return decodedFrame;
+    }
+
+    public YuvFrame getYuvFrame() {
+        return yuvFrame;
+    }
+
+    // Direct storage for the YUV planes, reused from frame to frame.
+    public ByteBuffer getYuvBuffer(int capacity) {
+        if (yuvBuffer == null || yuvBuffer.capacity() < capacity) {
+            yuvBuffer = ByteBuffer.allocateDirect(capacity);
+        }
+        yuvBuffer.clear();
+        return yuvBuffer;
+    }
+
+    public boolean isYuv() {
+        return yuv;
+    }
+
+    // Whether the reader filled the YUV frame rather than the decoded one.
+    public void setYuv(boolean yuv) {
+        this.yuv = yuv;
+    }
+
+    public long getIndex() {
+        return decodedFrame.getIndex();
+    }
+
+    // System.nanoTime() when the source handed the frame out.
+    public long getEmittedAtNanos() {
+        return emittedAtNanos;
+    }
+
+    void setEmittedAtNanos(long emittedAtNanos) {
+        this.emittedAtNanos = emittedAtNanos;
+    }
+
+    @Override
+    public void preprocess(Detector detector, TensorSlot slot) {
+        // Camera-to-result starts when the frame was emitted, as if the camera had just taken it.
+        long capturedAt = SystemClock.elapsedRealtimeNanos() - (System.nanoTime() - emittedAtNanos);
+        if (yuv) {
+            yuvFrame.setTimestampNanos(capturedAt);
+            detector.preprocess(yuvFrame, slot);
+        } else {
+            detector.preprocess(decodedFrame, slot);
+            slot.setCaptureTimeNanos(capturedAt);
+        }
+    }
+
+    @Override
+    public void release() {
+        source.recycle(this);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.myapplication;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Replays a recording as a frame source, on its own thread, for repeatable throughput and
+// latency runs. At a fixed rate frames are emitted on schedule whether or not the pipeline
+// keeps up, so a slow pipeline drops frames exactly as it would behind the camera. As fast as
+// possible, the next frame is only emitted once the previous one has been released, so nothing
+// is dropped and every run processes the same frames; decoding still overlaps preprocessing.
+public class ReplayFrameSource implements FrameSource {
+    private final Reader reader;
+    private final long frameIntervalNanos;
+    private final ArrayBlockingQueue<ReplayFrame> free;
+    private final Object releaseLock;
+    private Thread thread;
+    private volatile boolean running;
+    private int outstanding;
+    private volatile long emittedCount;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile IOException error;
+
+    public interface Reader extends Closeable {
+        // Fills frame with the next recorded frame; returns false at the end of the recording.
+        boolean next(ReplayFrame frame) throws IOException;
+    }
+
+    // framesPerSecond <= 0 replays as fast as possible.
+    public ReplayFrameSource(Reader reader, float framesPerSecond) {
+        this.reader = reader;
+        this.frameIntervalNanos = framesPerSecond > 0F ? (long) (1e9 / framesPerSecond) : 0;
+        this.free = new ArrayBlockingQueue<>(FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            free.add(new ReplayFrame(this));
+        }
+        this.releaseLock = new Object();
+    }
+
+    // A directory of images, a raw I420 dump (.yuv, which needs yuvWidth and yuvHeight) or a
+    // video file.
+    public static ReplayFrameSource open(File input, float framesPerSecond, int yuvWidth, int yuvHeight)
+            throws IOException {
+        Reader reader;
+        if (input.isDirectory()) {
+            reader = decoderReader(new ImageFolderDecoder(input));
+        } else if (input.getName().toLowerCase(Locale.ROOT).endsWith(".yuv")) {
+            reader = new RawYuvReader(input, yuvWidth, yuvHeight);
+        } else {
+            reader = decoderReader(new VideoFileDecoder(input.getPath(), MAX_VIDEO_SIDE));
+        }
+        return new ReplayFrameSource(reader, framesPerSecond);
+    }
+
+    // Reads ARGB frames from any FrameDecoder.
+    public static Reader decoderReader(FrameDecoder decoder) {
+        return new Reader() {
+            @Override
+            public boolean next(ReplayFrame frame) throws IOException {
+                frame.setYuv(false);
+                return decoder.next(frame.getDecodedFrame());
+            }
+
+            @Override
+            public void close() throws IOException {
+                decoder.close();
+            }
+        };
+    }
+
+    @Override
+    public void start(Listener listener) {
+        running = true;
+        thread = new Thread(() -> replay(listener), "Replay");
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // As fast as possible, every recorded frame is emitted only after the previous one was
+    // released, so none has to be dropped.
+    @Override
+    public boolean isLossless() {
+        return frameIntervalNanos == 0;
+    }
+
+    public void join() throws InterruptedException {
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    public long getEmittedCount() {
+        return emittedCount;
+    }
+
+    // Frames per second emitted from start until the end of the recording (or until now).
+    public float getFramesPerSecond() {
+        long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+        return startedAt == 0 || end == startedAt ? 0F : emittedCount * 1e9F / (end - startedAt);
+    }
+
+    // The read error that ended the replay early, if any.
+    public IOException getError() {
+        return error;
+    }
+
+    private void replay(Listener listener) {
+        startedAt = System.nanoTime();
+        try {
+            long index = 0;
+            while (running) {
+                ReplayFrame frame = free.take();
+                if (!reader.next(frame)) {
+                    free.add(frame);
+                    break;
+                }
+                if (frameIntervalNanos > 0) {
+                    long wait = startedAt + index * frameIntervalNanos - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+                    }
+                } else {
+                    awaitReleased();
+                }
+                synchronized (releaseLock) {
+                    outstanding++;
+                }
+                frame.setEmittedAtNanos(System.nanoTime());
+                emittedCount++;
+                index++;
+                listener.onFrame(frame);
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            finishedAt = System.nanoTime();
+            try {
+                reader.close();
+            } catch (IOException e) {
+                if (error == null) error = e;
+            }
+            listener.onEnd();
+        }
+    }
+
+    private void awaitReleased() throws InterruptedException {
+        synchronized (releaseLock) {
+            while (outstanding > 0) {
+                releaseLock.wait();
+            }
+        }
+    }
+
+    void recycle(ReplayFrame frame) {
+        synchronized (releaseLock) {
+            outstanding--;
+            releaseLock.notifyAll();
+        }
+        free.offer(frame);
+    }
+
+    // One frame being decoded while the previous one is held downstream, plus one in the mailbox.
+    private static final int FRAMES = 3;
+    private static final int MAX_VIDEO_SIDE = 1920;
+}
@@ -0,0 +1,139 @@
+package com.example.myapplication;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.List;
+
+// Detector listener that forwards results from the detection thread to the overlay on the
+// main thread. Results are staged in a buffer and at most one post is outstanding; if the UI
+// falls behind, newer results overwrite older ones instead of queueing. Results pass through
+// a ResultSmoother on the detection thread, so the overlay gets steady boxes with persistent ids.
+// They are also laid out in screen space there; a layout identical to the one on screen is
+// dropped without touching the view, so a static scene costs the UI thread nothing. With an
+// async renderer (SurfaceOverlayView) layouts are handed over on the detection thread and the
+// UI thread is not involved at all.
+public class ResultDispatcher implements Detector.DetectorListener {
+    private OverlayRenderer renderer;
+    private final Handler mainHandler;
+    private final ResultSmoother smoother;
+    private final DetectionBuffer incoming;
+    private final DetectionBuffer staged;
+    private OverlayLayout stagedLayout;
+    private OverlayLayout deliveredLayout;
+    private final OverlayLayout emptyLayout;
+    private final Runnable deliver;
+    private boolean posted;
+    private long inferenceTime;
+    private long stagedCount;
+    private long overwrittenCount;
+    private long unchangedCount;
+
+    public ResultDispatcher(OverlayRenderer renderer) {
+        this.renderer = renderer;
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.smoother = new ResultSmoother();
+        this.incoming = new DetectionBuffer();
+        this.staged = new DetectionBuffer();
+        this.stagedLayout = new OverlayLayout();
+        this.deliveredLayout = new OverlayLayout();
+        this.emptyLayout = new OverlayLayout();
+        this.deliver = this::deliver;
+    }
+
+    @Override
+    public void onEmptyDetect() {
+        onEmptyDetect(0);
+    }
+
+    @Override
+    public void onEmptyDetect(long inferenceTime) {
+        synchronized (this) {
+            incoming.clear();
+            smoother.update(incoming, SystemClock.uptimeMillis(), staged);
+            stage(inferenceTime);
+        }
+    }
+
+    @Override
+    public void onDetect(List<BoundingBox> boundingBoxes, long inferenceTime) {
+        synchronized (this) {
+            incoming.setBoundingBoxes(boundingBoxes);
+            smoother.update(incoming, SystemClock.uptimeMillis(), staged);
+            stage(inferenceTime);
+        }
+    }
+
+    @Override
+    public void onDetect(DetectionBuffer detections, long inferenceTime) {
+        synchronized (this) {
+            smoother.update(detections, SystemClock.uptimeMillis(), staged);
+            stage(inferenceTime);
+        }
+    }
+
+    // Switches backends; call on the UI thread. The old one is cleared and the next result goes
+    // to the new one even if nothing moved.
+    public synchronized void setRenderer(OverlayRenderer next) {
+        if (next == renderer) return;
+        renderer.setLayout(emptyLayout);
+        renderer = next;
+        deliveredLayout.clear();
+    }
+
+    public synchronized OverlayRenderer getRenderer() {
+        return renderer;
+    }
+
+    public synchronized long getInferenceTime() {
+        return inferenceTime;
+    }
+
+    // Results replaced before the UI thread picked them up.
+    public synchronized long getOverwrittenCount() {
+        return overwrittenCount;
+    }
+
+    public synchronized long getStagedCount() {
+        return stagedCount;
+    }
+
+    // Results that matched what was already drawn, so the overlay was not invalidated.
+    public synchronized long getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    private void stage(long inferenceTime) {
+        this.inferenceTime = inferenceTime;
+        stagedLayout.build(staged, renderer.getViewWidth(), renderer.getViewHeight(),
+                renderer.getLabelMetrics(), renderer.getLabelPadding());
+        stagedCount++;
+        if (renderer.isAsync()) {
+            deliver();
+            return;
+        }
+        if (posted) {
+            overwrittenCount++;
+            return;
+        }
+        posted = true;
+        mainHandler.post(deliver);
+    }
+
+    // A synchronous renderer keeps drawing deliveredLayout until the next swap, so the detection
+    // thread only ever writes the other one. An async one has copied it by the time this returns.
+    private void deliver() {
+        synchronized (this) {
+            posted = false;
+            if (stagedLayout.sameAs(deliveredLayout)) {
+                unchangedCount++;
+                return;
+            }
+            OverlayLayout next = stagedLayout;
+            stagedLayout = deliveredLayout;
+            deliveredLayout = next;
+            renderer.setLayout(deliveredLayout);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+
+// Stabilizes what the overlay shows. Each frame's results are matched to the boxes shown last
+// time, first by upstream track id (ObjectTracker) and otherwise by IoU within a class; box
+// edges are then smoothed with a one-euro filter (heavy smoothing when still, little lag when
+// moving), and every box keeps a persistent id. Boxes that disappear are held for a couple of
+// frames so single missed detections do not flicker.
+//
+// Matching sorts the previous ids once and binary-searches them, and finds IoU candidates with
+// a sweep over x extents, so a frame costs O(n log n) plus the number of x-overlapping pairs.
+// All storage is reused; nothing is allocated once the arrays have grown.
+public class ResultSmoother {
+    private final float iouThreshold;
+    private final int holdFrames;
+    private final float minCutoff;
+    private final float beta;
+    private int count;
+    private int nextId;
+    private int[] ids;
+    private int[] sourceTrack;
+    private int[] cls;
+    private String[] clsName;
+    private float[] cnf;
+    private int[] misses;
+    private long[] lastTime;
+    // Per entry, the filtered x1, y1, x2, y2 and their filtered derivatives.
+    private float[] value;
+    private float[] derivative;
+    private boolean[] entryMatched;
+    private int[] resultEntry;
+    private long[] trackKeys;
+    private long[] events;
+    private long[] pairs;
+    private int[] activeEntries;
+    private int[] activeResults;
+    private int[] activePosition;
+
+    public ResultSmoother() {
+        this(DEFAULT_IOU_THRESHOLD, DEFAULT_HOLD_FRAMES, DEFAULT_MIN_CUTOFF, DEFAULT_BETA);
+    }
+
+    // minCutoff (Hz) sets the smoothing of still boxes; beta sets how quickly it relaxes with speed.
+    public ResultSmoother(float iouThreshold, int holdFrames, float minCutoff, float beta) {
+        this.iouThreshold = iouThreshold;
+        this.holdFrames = holdFrames;
+        this.minCutoff = minCutoff;
+        this.beta = beta;
+        this.count = 0;
+        this.nextId = 0;
+        allocate(INITIAL_CAPACITY);
+        this.resultEntry = new int[0];
+        this.trackKeys = new long[0];
+        this.events = new long[0];
+        this.pairs = new long[0];
+        this.activeEntries = new int[0];
+        this.activeResults = new int[0];
+        this.activePosition = new int[0];
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    // Writes the smoothed boxes, tagged with their persistent ids, to out.
+    public void update(DetectionBuffer results, long timeMillis, DetectionBuffer out) {
+        int resultCount = results.size();
+        if (resultEntry.length < resultCount) {
+            resultEntry = new int[Math.max(resultCount, resultEntry.length * 2)];
+        }
+        Arrays.fill(resultEntry, 0, resultCount, -1);
+        Arrays.fill(entryMatched, 0, count, false);
+        matchByTrackId(results);
+        matchByOverlap(results);
+
+        for (int d = 0; d < resultCount; d++) {
+            int e = resultEntry[d];
+            if (e < 0) {
+                startEntry(results, d, timeMillis);
+            } else {
+                filterEntry(e, results, d, timeMillis);
+            }
+        }
+        // Unmatched entries are held for a few frames, then dropped; survivors are compacted.
+        int kept = 0;
+        for (int e = 0; e < count; e++) {
+            if (!entryMatched[e] && ++misses[e] > holdFrames) continue;
+            if (kept != e) moveEntry(e, kept);
+            kept++;
+        }
+        count = kept;
+
+        out.clear();
+        for (int e = 0; e < count; e++) {
+            int v = e * COORDINATES;
+            float x1 = value[v], y1 = value[v + 1], x2 = value[v + 2], y2 = value[v + 3];
+            int i = out.add(x1, y1, x2, y2, (x1 + x2) / 2F, (y1 + y2) / 2F, x2 - x1, y2 - y1, cnf[e], cls[e], clsName[e]);
+            out.setTrackId(i, ids[e]);
+        }
+    }
+
+    private void matchByTrackId(DetectionBuffer results) {
+        if (trackKeys.length < count) {
+            trackKeys = new long[Math.max(count, trackKeys.length * 2)];
+        }
+        int keys = 0;
+        for (int e = 0; e < count; e++) {
+            if (sourceTrack[e] != BoundingBox.NO_TRACK) {
+                trackKeys[keys++] = ((long) sourceTrack[e] << 32) | e;
+            }
+        }
+        if (keys == 0) return;
+        Arrays.sort(trackKeys, 0, keys);
+        for (int d = 0; d < results.size(); d++) {
+            int trackId = results.getTrackId(d);
+            if (trackId == BoundingBox.NO_TRACK) continue;
+            // Smallest key with this track id in the high half.
+            int position = Arrays.binarySearch(trackKeys, 0, keys, (long) trackId << 32);
+            if (position < 0) position = -position - 1;
+            if (position == keys || (int) (trackKeys[position] >> 32) != trackId) continue;
+            int e = (int) trackKeys[position];
+            if (entryMatched[e]) continue;
+            entryMatched[e] = true;
+            resultEntry[d] = e;
+        }
+    }
+
+    private void matchByOverlap(DetectionBuffer results) {
+        int resultCount = results.size();
+        int eventCount = 2 * (count + resultCount);
+        if (events.length < eventCount) {
+            events = new long[Math.max(eventCount, events.length * 2)];
+        }
+        int needed = Math.max(count, resultCount);
+        if (activeEntries.length < needed) {
+            activeEntries = new int[needed];
+            activeResults = new int[needed];
+        }
+        if (activePosition.length < count + resultCount) {
+            activePosition = new int[count + resultCount];
+        }
+        // Sweep over x: each box adds a start and an end event. Ends sort before starts at the
+        // same x, since boxes that only touch cannot overlap.
+        int n = 0;
+        for (int e = 0; e < count; e++) {
+            if (entryMatched[e]) continue;
+            int v = e * COORDINATES;
+            events[n++] = event(value[v], EVENT_START, e);
+            events[n++] = event(value[v + 2], 0, e);
+        }
+        for (int d = 0; d < resultCount; d++) {
+            if (resultEntry[d] >= 0) continue;
+            events[n++] = event(results.getX1(d), EVENT_START | EVENT_RESULT, d);
+            events[n++] = event(results.getX2(d), EVENT_RESULT, d);
+        }
+        Arrays.sort(events, 0, n);
+
+        int pairCount = 0;
+        int entryActive = 0;
+        int resultActive = 0;
+        for (int k = 0; k < n; k++) {
+            int low = (int) events[k];
+            int index = low & EVENT_INDEX_MASK;
+            boolean start = (low & EVENT_START) != 0;
+            boolean result = (low & EVENT_RESULT) != 0;
+            if (start) {
+                // Pair the new box with every active box of the other kind; they overlap in x.
+                int others = result ? entryActive : resultActive;
+                for (int a = 0; a < others; a++) {
+                    int e = result ? activeEntries[a] : index;
+                    int d = result ? index : activeResults[a];
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, Math.max(16, pairs.length * 2));
+                    }
+                    float iou = overlap(e, results, d);
+                    if (iou >= iouThreshold) {
+                        pairs[pairCount++] = ((long) NonMaxSuppression.sortableBits(iou) << 32) | ((long) e << 16) | d;
+                    }
+                }
+                if (result) {
+                    activePosition[count + index] = resultActive;
+                    activeResults[resultActive++] = index;
+                } else {
+                    activePosition[index] = entryActive;
+                    activeEntries[entryActive++] = index;
+                }
+            } else if (result) {
+                int position = activePosition[count + index];
+                int last = activeResults[--resultActive];
+                activeResults[position] = last;
+                activePosition[count + last] = position;
+            } else {
+                int position = activePosition[index];
+                int last = activeEntries[--entryActive];
+                activeEntries[position] = last;
+                activePosition[last] = position;
+            }
+        }
+
+        Arrays.sort(pairs, 0, pairCount);
+        for (int k = pairCount - 1; k >= 0; k--) {
+            int e = (int) (pairs[k] >>> 16) & 0xFFFF;
+            int d = (int) pairs[k] & 0xFFFF;
+            if (entryMatched[e] || resultEntry[d] >= 0) continue;
+            entryMatched[e] = true;
+            resultEntry[d] = e;
+        }
+    }
+
+    private float overlap(int e, DetectionBuffer results, int d) {
+        if (cls[e] != results.getCls(d)) return 0F;
+        int v = e * COORDINATES;
+        float x1 = value[v], y1 = value[v + 1], x2 = value[v + 2], y2 = value[v + 3];
+        return NonMaxSuppression.calculateIoU(x1, y1, x2, y2, (x2 - x1) * (y2 - y1),
+                results.getX1(d), results.getY1(d), results.getX2(d), results.getY2(d),
+                results.getW(d) * results.getH(d));
+    }
+
+    private void filterEntry(int e, DetectionBuffer results, int d, long timeMillis) {
+        float dt = Math.max(timeMillis - lastTime[e], 1L) / 1000F;
+        int v = e * COORDINATES;
+        for (int c = 0; c < COORDINATES; c++) {
+            float raw = coordinate(results, d, c);
+            float rate = (raw - value[v + c]) / dt;
+            derivative[v + c] += smoothing(DERIVATIVE_CUTOFF, dt) * (rate - derivative[v + c]);
+            float cutoff = minCutoff + beta * Math.abs(derivative[v + c]);
+            value[v + c] += smoothing(cutoff, dt) * (raw - value[v + c]);
+        }
+        sourceTrack[e] = results.getTrackId(d);
+        cnf[e] = results.getCnf(d);
+        clsName[e] = results.getClsName(d);
+        misses[e] = 0;
+        lastTime[e] = timeMillis;
+    }
+
+    private void startEntry(DetectionBuffer results, int d, long timeMillis) {
+        if (count == ids.length) {
+            grow();
+        }
+        int e = count++;
+        int v = e * COORDINATES;
+        for (int c = 0; c < COORDINATES; c++) {
+            value[v + c] = coordinate(results, d, c);
+            derivative[v + c] = 0F;
+        }
+        ids[e] = nextId++;
+        sourceTrack[e] = results.getTrackId(d);
+        cls[e] = results.getCls(d);
+        clsName[e] = results.getClsName(d);
+        cnf[e] = results.getCnf(d);
+        misses[e] = 0;
+        lastTime[e] = timeMillis;
+        entryMatched[e] = true;
+    }
+
+    private static float coordinate(DetectionBuffer results, int d, int coordinate) {
+        switch (coordinate) {
+            case 0:
+                return results.getX1(d);
+            case 1:
+                return results.getY1(d);
+            case 2:
+                return results.getX2(d);
+            default:
+                return results.getY2(d);
+        }
+    }
+
+    // Exponential smoothing factor of a first-order low-pass filter with the given cutoff.
+    private static float smoothing(float cutoff, float dt) {
+        float tau = 1F / (2F * (float) Math.PI * cutoff);
+        return 1F / (1F + tau / dt);
+    }
+
+    private static long event(float x, int flags, int index) {
+        return ((long) NonMaxSuppression.sortableBits(x) << 32) | flags | index;
+    }
+
+    private void moveEntry(int from, int to) {
+        ids[to] = ids[from];
+        sourceTrack[to] = sourceTrack[from];
+        cls[to] = cls[from];
+        clsName[to] = clsName[from];
+        cnf[to] = cnf[from];
+        misses[to] = misses[from];
+        lastTime[to] = lastTime[from];
+        entryMatched[to] = entryMatched[from];
+        System.arraycopy(value, from * COORDINATES, value, to * COORDINATES, COORDINATES);
+        System.arraycopy(derivative, from * COORDINATES, derivative, to * COORDINATES, COORDINATES);
+    }
+
+    private void grow() {
+        int[] oldIds = ids, oldSourceTrack = sourceTrack, oldCls = cls, oldMisses = misses;
+        String[] oldClsName = clsName;
+        float[] oldCnf = cnf, oldValue = value, oldDerivative = derivative;
+        long[] oldLastTime = lastTime;
+        boolean[] oldMatched = entryMatched;
+        allocate(ids.length * 2);
+        System.arraycopy(oldIds, 0, ids, 0, count);
+        System.arraycopy(oldSourceTrack, 0, sourceTrack, 0, count);
+        System.arraycopy(oldCls, 0, cls, 0, count);
+        System.arraycopy(oldMisses, 0, misses, 0, count);
+        System.arraycopy(oldClsName, 0, clsName, 0, count);
+        System.arraycopy(oldCnf, 0, cnf, 0, count);
+        System.arraycopy(oldLastTime, 0, lastTime, 0, count);
+        System.arraycopy(oldMatched, 0, entryMatched, 0, count);
+        System.arraycopy(oldValue, 0, value, 0, count * COORDINATES);
+        System.arraycopy(oldDerivative, 0, derivative, 0, count * COORDINATES);
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        sourceTrack = new int[capacity];
+        cls = new int[capacity];
+        clsName = new String[capacity];
+        cnf = new float[capacity];
+        misses = new int[capacity];
+        lastTime = new long[capacity];
+        entryMatched = new boolean[capacity];
+        value = new float[capacity * COORDINATES];
+        derivative = new float[capacity * COORDINATES];
+    }
+
+    private static final int COORDINATES = 4;
+    private static final int INITIAL_CAPACITY = 32;
+    private static final int EVENT_START = 1 << 30;
+    private static final int EVENT_RESULT = 1 << 29;
+    private static final int EVENT_INDEX_MASK = EVENT_RESULT - 1;
+    private static final float DERIVATIVE_CUTOFF = 1F;
+    private static final float DEFAULT_IOU_THRESHOLD = 0.3F;
+    private static final int DEFAULT_HOLD_FRAMES = 2;
+    private static final float DEFAULT_MIN_CUTOFF = 1.5F;
+    private static final float DEFAULT_BETA = 4F;
+}
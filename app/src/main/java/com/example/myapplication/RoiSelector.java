@@ -0,0 +1,131 @@
+package com.example.myapplication;
+
+// Chooses the part of the frame that is scaled into the model input. Running the model on a
+// crop gives small, distant objects more tensor pixels than downscaling the whole frame.
+//  - FULL_FRAME: the whole frame, as before.
+//  - ZOOM: a centred crop set from the zoom slider, leaving the preview itself unzoomed.
+//  - AUTO: a crop around the previous detections, with a full-frame pass every
+//    fullFrameInterval frames (and whenever nothing was found) so new objects are picked up.
+// Crops are squares in normalized coordinates, so they keep the frame's aspect ratio and boxes
+// map back to full-frame coordinates with a scale and an offset. select() is called from the
+// preprocess stage and onResults() from the postprocess stage, hence the locking.
+public class RoiSelector {
+    private Mode mode;
+    private final int fullFrameInterval;
+    private final float maxZoom;
+    private float zoomSize;
+    private boolean hasResults;
+    private float resultsLeft;
+    private float resultsTop;
+    private float resultsRight;
+    private float resultsBottom;
+    private int framesSinceFullFrame;
+    private long roiFrames;
+    private long fullFrames;
+
+    public enum Mode {
+        FULL_FRAME,
+        ZOOM,
+        AUTO
+    }
+
+    public RoiSelector() {
+        this(DEFAULT_FULL_FRAME_INTERVAL, DEFAULT_MAX_ZOOM);
+    }
+
+    public RoiSelector(int fullFrameInterval, float maxZoom) {
+        this.mode = Mode.FULL_FRAME;
+        this.fullFrameInterval = fullFrameInterval;
+        this.maxZoom = maxZoom;
+        this.zoomSize = 1F;
+        this.hasResults = false;
+        this.framesSinceFullFrame = 0;
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    public synchronized void setMode(Mode mode) {
+        this.mode = mode;
+        this.hasResults = false;
+    }
+
+    // zoomRatio >= 1; the crop covers 1 / zoomRatio of each dimension.
+    public synchronized void setZoom(float zoomRatio) {
+        zoomSize = 1F / Math.max(1F, Math.min(maxZoom, zoomRatio));
+    }
+
+    public synchronized void select(TensorSlot slot) {
+        switch (mode) {
+            case ZOOM: {
+                float start = (1F - zoomSize) / 2F;
+                setRoi(slot, start, start, start + zoomSize, start + zoomSize);
+                break;
+            }
+            case AUTO:
+                if (!hasResults || framesSinceFullFrame + 1 >= fullFrameInterval) {
+                    setRoi(slot, 0F, 0F, 1F, 1F);
+                } else {
+                    selectAroundResults(slot);
+                }
+                break;
+            default:
+                setRoi(slot, 0F, 0F, 1F, 1F);
+                break;
+        }
+    }
+
+    // Full-frame results of a keyframe, used to place the next AUTO crop.
+    public synchronized void onResults(DetectionBuffer results) {
+        if (mode != Mode.AUTO) return;
+        hasResults = !results.isEmpty();
+        if (!hasResults) return;
+        resultsLeft = Float.MAX_VALUE;
+        resultsTop = Float.MAX_VALUE;
+        resultsRight = -Float.MAX_VALUE;
+        resultsBottom = -Float.MAX_VALUE;
+        for (int i = 0; i < results.size(); i++) {
+            resultsLeft = Math.min(resultsLeft, results.getX1(i));
+            resultsTop = Math.min(resultsTop, results.getY1(i));
+            resultsRight = Math.max(resultsRight, results.getX2(i));
+            resultsBottom = Math.max(resultsBottom, results.getY2(i));
+        }
+    }
+
+    public synchronized long getRoiFrames() {
+        return roiFrames;
+    }
+
+    public synchronized long getFullFrames() {
+        return fullFrames;
+    }
+
+    private void selectAroundResults(TensorSlot slot) {
+        // Square around the results plus a margin for movement, no smaller than maxZoom allows.
+        float width = resultsRight - resultsLeft;
+        float height = resultsBottom - resultsTop;
+        float size = Math.max(width, height) * (1F + 2F * AUTO_MARGIN);
+        size = Math.max(1F / maxZoom, Math.min(1F, size));
+        float centerX = (resultsLeft + resultsRight) / 2F;
+        float centerY = (resultsTop + resultsBottom) / 2F;
+        float left = Math.max(0F, Math.min(1F - size, centerX - size / 2F));
+        float top = Math.max(0F, Math.min(1F - size, centerY - size / 2F));
+        setRoi(slot, left, top, left + size, top + size);
+    }
+
+    private void setRoi(TensorSlot slot, float left, float top, float right, float bottom) {
+        slot.setRoi(left, top, right, bottom);
+        if (slot.isFullFrame()) {
+            framesSinceFullFrame = 0;
+            fullFrames++;
+        } else {
+            framesSinceFullFrame++;
+            roiFrames++;
+        }
+    }
+
+    private static final int DEFAULT_FULL_FRAME_INTERVAL = 10;
+    private static final float DEFAULT_MAX_ZOOM = 4F;
+    private static final float AUTO_MARGIN = 0.25F;
+}
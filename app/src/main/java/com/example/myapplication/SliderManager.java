@@ -77,6 +77,10 @@ public class SliderManager {
         }
     }
 
+    public int getValue() {
+        return slider.getProgress();
+    }
+
     public void setMaxValue(int maxValue) {
         slider.setMax(maxValue);
     }
@@ -0,0 +1,10 @@
+package com.example.myapplication;
+
+// One frame from a FrameSource. Whoever holds it must call release() exactly once, normally the
+// detection pipeline after preprocessing, so the source can reuse the frame's buffers.
+public interface SourceFrame {
+    // Writes the frame into the slot's input tensor through the matching Detector.preprocess.
+    void preprocess(Detector detector, TensorSlot slot);
+
+    void release();
+}
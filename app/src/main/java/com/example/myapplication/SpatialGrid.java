@@ -0,0 +1,104 @@
+package com.example.myapplication;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+// Uniform grid over box extents, stored as compressed rows: the items of cell c are
+// items[cellStart[c] .. cellStart[c + 1]). A box is listed in every cell it touches and
+// items are inserted in index order, so each cell list is sorted. Each box may carry an
+// offset that is subtracted from its coordinates before bucketing (see NonMaxSuppression).
+public class SpatialGrid {
+    private int columns;
+    private int rows;
+    private float minX;
+    private float minY;
+    private float cellWidth;
+    private float cellHeight;
+    private int[] cellStart;
+    private int[] items;
+
+    public SpatialGrid() {
+        this.cellStart = new int[0];
+        this.items = new int[0];
+    }
+
+    public void build(float[] x1, float[] y1, float[] x2, float[] y2, float[] offsets, int count, int gridSize) {
+        minX = Float.MAX_VALUE;
+        minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = min(minX, x1[i] - offsets[i]);
+            minY = min(minY, y1[i] - offsets[i]);
+            maxX = max(maxX, x2[i] - offsets[i]);
+            maxY = max(maxY, y2[i] - offsets[i]);
+        }
+        columns = gridSize;
+        rows = gridSize;
+        cellWidth = max((maxX - minX) / columns, Float.MIN_NORMAL);
+        cellHeight = max((maxY - minY) / rows, Float.MIN_NORMAL);
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        }
+        for (int c = 0; c <= cells; c++) {
+            cellStart[c] = 0;
+        }
+        // First pass counts entries per cell, shifted by one so the prefix sum yields start offsets.
+        for (int i = 0; i < count; i++) {
+            int col1 = column(x1[i] - offsets[i]), col2 = column(x2[i] - offsets[i]);
+            int row1 = row(y1[i] - offsets[i]), row2 = row(y2[i] - offsets[i]);
+            for (int r = row1; r <= row2; r++) {
+                for (int c = col1; c <= col2; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int total = cellStart[cells];
+        if (items.length < total) {
+            items = new int[total];
+        }
+        // Second pass fills each cell, using cellStart[c] as the cursor and restoring it afterwards.
+        for (int i = 0; i < count; i++) {
+            int col1 = column(x1[i] - offsets[i]), col2 = column(x2[i] - offsets[i]);
+            int row1 = row(y1[i] - offsets[i]), row2 = row(y2[i] - offsets[i]);
+            for (int r = row1; r <= row2; r++) {
+                for (int c = col1; c <= col2; c++) {
+                    items[cellStart[r * columns + c]++] = i;
+                }
+            }
+        }
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    public int column(float x) {
+        return max(0, min(columns - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    public int row(float y) {
+        return max(0, min(rows - 1, (int) ((y - minY) / cellHeight)));
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getCellStart(int cell) {
+        return cellStart[cell];
+    }
+
+    public int getCellEnd(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    public int getItem(int position) {
+        return items[position];
+    }
+}
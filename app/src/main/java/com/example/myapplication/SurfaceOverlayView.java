@@ -0,0 +1,197 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import androidx.core.content.ContextCompat;
+
+import com.example.myapplication.R;
+
+import java.util.List;
+
+// Overlay backend that draws into its own surface from a render thread, so many boxes cost the
+// UI thread nothing: no onDraw, no invalidation, no display list to record. Layouts are copied
+// straight from the detection thread; the render thread draws only the latest one. All box
+// outlines go out in a single drawLines call, labels are still drawn one by one. The surface is
+// composited on top of the window, so boxes also cover the buttons and the HUD they overlap.
+public class SurfaceOverlayView extends SurfaceView implements SurfaceHolder.Callback, OverlayRenderer {
+    private final Object lock;
+    private OverlayLayout pending;
+    private OverlayLayout drawing;
+    private boolean pendingReady;
+    private boolean dirty;
+    private boolean running;
+    private Thread thread;
+    private volatile LabelMetrics labelMetrics;
+    private volatile int viewWidth;
+    private volatile int viewHeight;
+    private volatile PipelineMetrics metrics;
+    private Paint linePaint;
+    private Paint textBackgroundPaint;
+    private Paint textPaint;
+
+    public SurfaceOverlayView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        lock = new Object();
+        pending = new OverlayLayout();
+        drawing = new OverlayLayout();
+        linePaint = new Paint();
+        textBackgroundPaint = new Paint();
+        textPaint = new Paint();
+        initPaints();
+        labelMetrics = new LabelMetrics(textBackgroundPaint);
+        setZOrderOnTop(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+    }
+
+    private void initPaints() {
+        // Square caps close the corners where two edges of a box meet.
+        linePaint.setColor(ContextCompat.getColor(getContext(), R.color.bounding_box_color));
+        linePaint.setStrokeWidth(8F);
+        linePaint.setStrokeCap(Paint.Cap.SQUARE);
+        linePaint.setStyle(Paint.Style.STROKE);
+        textBackgroundPaint.setColor(Color.BLACK);
+        textBackgroundPaint.setStyle(Paint.Style.FILL);
+        textBackgroundPaint.setTextSize(50f);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setStyle(Paint.Style.FILL);
+        textPaint.setTextSize(50f);
+    }
+
+    public void setLabels(List<String> labels) {
+        labelMetrics = LabelMetrics.measure(labels, textBackgroundPaint);
+    }
+
+    // Frame times are recorded into metrics as OVERLAY_SURFACE.
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public LabelMetrics getLabelMetrics() {
+        return labelMetrics;
+    }
+
+    @Override
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    @Override
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    @Override
+    public float getLabelPadding() {
+        return BOUNDING_RECT_TEXT_PADDING;
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    // Any thread. A layout not drawn yet is replaced by the newer one.
+    @Override
+    public void setLayout(OverlayLayout layout) {
+        synchronized (lock) {
+            pending.copyFrom(layout);
+            pendingReady = true;
+            dirty = true;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (lock) {
+            running = true;
+            dirty = true;
+        }
+        thread = new Thread(() -> render(holder), "OverlayRender");
+        thread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        viewWidth = width;
+        viewHeight = height;
+        synchronized (lock) {
+            dirty = true;
+            lock.notifyAll();
+        }
+    }
+
+    // The surface must not be touched once this returns, so wait for the render thread.
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    private void render(SurfaceHolder holder) {
+        while (true) {
+            synchronized (lock) {
+                try {
+                    while (running && !dirty) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!running) return;
+                dirty = false;
+                if (pendingReady) {
+                    OverlayLayout next = pending;
+                    pending = drawing;
+                    drawing = next;
+                    pendingReady = false;
+                }
+            }
+            draw(holder, drawing);
+        }
+    }
+
+    private void draw(SurfaceHolder holder, OverlayLayout layout) {
+        long start = System.nanoTime();
+        Canvas canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? holder.lockHardwareCanvas() : holder.lockCanvas();
+        if (canvas == null) return;
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        int count = layout.size();
+        if (count > 0) {
+            canvas.drawLines(layout.getLines(), 0, count * 16, linePaint);
+        }
+        float[] labels = layout.getLabels();
+        for (int i = 0; i < count; i++) {
+            int l = i * 6;
+            canvas.drawRect(labels[l], labels[l + 1], labels[l + 2], labels[l + 3], textBackgroundPaint);
+            canvas.drawText(layout.getName(i), labels[l + 4], labels[l + 5], textPaint);
+        }
+        holder.unlockCanvasAndPost(canvas);
+        PipelineMetrics current = metrics;
+        // Only frames with boxes, matching what OverlayView records.
+        if (current != null && count > 0) {
+            current.record(PipelineMetrics.Stage.OVERLAY_SURFACE, System.nanoTime() - start);
+        }
+    }
+
+    private static final int BOUNDING_RECT_TEXT_PADDING = 8;
+}
@@ -0,0 +1,168 @@
+package com.example.myapplication;
+
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// Owns the interpreter input buffer and fills it straight from ARGB pixels: nearest-neighbour
+// resize (the same sampling as Bitmap.createScaledBitmap with filtering off) and normalization
+// in one pass, with no intermediate Bitmap or TensorImage. Quantized (UINT8/INT8) inputs get
+// the normalized value quantized through a byte lookup table instead of being cast from float.
+// An integer input with scale 0 has no quantization parameters (TFLite reports 0 then); it is
+// fed raw pixel values, shifted by -128 for INT8, and mean and standard deviation are unused.
+public class TensorPreprocessor {
+    private final int tensorWidth;
+    private final int tensorHeight;
+    private final DataType inputType;
+    private final ByteBuffer inputBuffer;
+    private final FloatBuffer inputFloats;
+    private final float[] normalized;
+    private final byte[] quantized;
+    private final float[] row;
+    private final byte[] byteRow;
+    private int[] columnMap;
+    private int mappedWidth;
+    private int mappedLeft;
+    private int mappedCropWidth;
+
+    public TensorPreprocessor(int tensorWidth, int tensorHeight, float mean, float standardDeviation) {
+        this(tensorWidth, tensorHeight, mean, standardDeviation, DataType.FLOAT32, 0F, 0);
+    }
+
+    public TensorPreprocessor(int tensorWidth, int tensorHeight, float mean, float standardDeviation,
+                              DataType inputType, float scale, int zeroPoint) {
+        this(tensorWidth, tensorHeight, mean, standardDeviation, inputType, scale, zeroPoint,
+                ByteBuffer.allocateDirect(tensorWidth * tensorHeight * CHANNELS * inputType.byteSize()));
+    }
+
+    // Writes into inputBuffer, which may be one frame's slice of a batched input (see Detector).
+    TensorPreprocessor(int tensorWidth, int tensorHeight, float mean, float standardDeviation,
+                       DataType inputType, float scale, int zeroPoint, ByteBuffer inputBuffer) {
+        if (inputType != DataType.FLOAT32 && inputType != DataType.UINT8 && inputType != DataType.INT8) {
+            throw new IllegalArgumentException("Unsupported input type " + inputType);
+        }
+        this.tensorWidth = tensorWidth;
+        this.tensorHeight = tensorHeight;
+        this.inputType = inputType;
+        this.inputBuffer = inputBuffer;
+        this.inputBuffer.order(ByteOrder.nativeOrder());
+        this.inputFloats = inputBuffer.asFloatBuffer();
+        this.normalized = new float[256];
+        this.quantized = new byte[256];
+        int min = inputType == DataType.INT8 ? -128 : 0;
+        int max = inputType == DataType.INT8 ? 127 : 255;
+        for (int v = 0; v < 256; v++) {
+            // Same expression NormalizeOp evaluates, so results are bit-identical.
+            normalized[v] = (v - mean) / standardDeviation;
+            if (inputType != DataType.FLOAT32) {
+                int q = scale == 0F ? v + min : Math.round(normalized[v] / scale) + zeroPoint;
+                quantized[v] = (byte) Math.max(min, Math.min(max, q));
+            }
+        }
+        this.row = new float[inputType == DataType.FLOAT32 ? tensorWidth * CHANNELS : 0];
+        this.byteRow = new byte[inputType == DataType.FLOAT32 ? 0 : tensorWidth * CHANNELS];
+        this.columnMap = new int[tensorWidth];
+        this.mappedWidth = -1;
+    }
+
+    public int getTensorWidth() {
+        return tensorWidth;
+    }
+
+    public int getTensorHeight() {
+        return tensorHeight;
+    }
+
+    public DataType getInputType() {
+        return inputType;
+    }
+
+    public ByteBuffer getInputBuffer() {
+        inputBuffer.rewind();
+        return inputBuffer;
+    }
+
+    public void writeArgb(int[] pixels, int width, int height) {
+        writeArgb(pixels, width, height, 0F, 0F, 1F, 1F);
+    }
+
+    // Scales only the given normalized region of the image into the tensor.
+    public void writeArgb(int[] pixels, int width, int height, float left, float top, float right, float bottom) {
+        int cropLeft = Math.round(left * width);
+        int cropTop = Math.round(top * height);
+        int cropWidth = Math.max(1, Math.round(right * width) - cropLeft);
+        int cropHeight = Math.max(1, Math.round(bottom * height) - cropTop);
+        if (mappedWidth != width || mappedLeft != cropLeft || mappedCropWidth != cropWidth) {
+            for (int x = 0; x < tensorWidth; x++) {
+                columnMap[x] = Math.min(width - 1, cropLeft + sampleIndex(x, cropWidth, tensorWidth));
+            }
+            mappedWidth = width;
+            mappedLeft = cropLeft;
+            mappedCropWidth = cropWidth;
+        }
+        if (inputType == DataType.FLOAT32) {
+            inputFloats.rewind();
+            for (int y = 0; y < tensorHeight; y++) {
+                int rowOffset = Math.min(height - 1, cropTop + sampleIndex(y, cropHeight, tensorHeight)) * width;
+                int i = 0;
+                for (int x = 0; x < tensorWidth; x++) {
+                    int pixel = pixels[rowOffset + columnMap[x]];
+                    row[i++] = normalized[(pixel >> 16) & 0xFF];
+                    row[i++] = normalized[(pixel >> 8) & 0xFF];
+                    row[i++] = normalized[pixel & 0xFF];
+                }
+                inputFloats.put(row);
+            }
+        } else {
+            inputBuffer.rewind();
+            for (int y = 0; y < tensorHeight; y++) {
+                int rowOffset = Math.min(height - 1, cropTop + sampleIndex(y, cropHeight, tensorHeight)) * width;
+                int i = 0;
+                for (int x = 0; x < tensorWidth; x++) {
+                    int pixel = pixels[rowOffset + columnMap[x]];
+                    byteRow[i++] = quantized[(pixel >> 16) & 0xFF];
+                    byteRow[i++] = quantized[(pixel >> 8) & 0xFF];
+                    byteRow[i++] = quantized[pixel & 0xFF];
+                }
+                inputBuffer.put(byteRow);
+            }
+        }
+    }
+
+    // Row-at-a-time entry point for converters that produce pixels themselves (see YuvConverter):
+    // call beginFrame() once, then putRow() with tensorWidth ARGB pixels for each tensor row.
+    public void beginFrame() {
+        inputFloats.rewind();
+        inputBuffer.rewind();
+    }
+
+    public void putRow(int[] argbRow) {
+        int i = 0;
+        if (inputType == DataType.FLOAT32) {
+            for (int x = 0; x < tensorWidth; x++) {
+                int pixel = argbRow[x];
+                row[i++] = normalized[(pixel >> 16) & 0xFF];
+                row[i++] = normalized[(pixel >> 8) & 0xFF];
+                row[i++] = normalized[pixel & 0xFF];
+            }
+            inputFloats.put(row);
+        } else {
+            for (int x = 0; x < tensorWidth; x++) {
+                int pixel = argbRow[x];
+                byteRow[i++] = quantized[(pixel >> 16) & 0xFF];
+                byteRow[i++] = quantized[(pixel >> 8) & 0xFF];
+                byteRow[i++] = quantized[pixel & 0xFF];
+            }
+            inputBuffer.put(byteRow);
+        }
+    }
+
+    // Source index sampled for destination index dst, taken at the destination pixel centre.
+    static int sampleIndex(int dst, int sourceSize, int destinationSize) {
+        return (int) (((2L * dst + 1) * sourceSize) / (2L * destinationSize));
+    }
+
+    private static final int CHANNELS = 3;
+}
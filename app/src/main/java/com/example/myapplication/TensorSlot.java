@@ -0,0 +1,131 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// One frame's worth of interpreter input and output. DetectionPipeline cycles a few of these so
+// a frame can be preprocessed while the previous one is still in the interpreter.
+public class TensorSlot {
+    private final TensorPreprocessor preprocessor;
+    private final YuvConverter yuvConverter;
+    private final ByteBuffer outputBuffer;
+    private final FloatBuffer outputFloats;
+    private int[] pixels;
+    private long startTime;
+    private long captureTimeNanos;
+    private long invokeNanos;
+    private boolean keyframe;
+    private float roiLeft;
+    private float roiTop;
+    private float roiRight;
+    private float roiBottom;
+
+    public TensorSlot(TensorPreprocessor preprocessor, int outputBytes) {
+        this(preprocessor, ByteBuffer.allocateDirect(outputBytes));
+    }
+
+    // Reads from outputBuffer, which may be one frame's slice of a batched output (see Detector).
+    TensorSlot(TensorPreprocessor preprocessor, ByteBuffer outputBuffer) {
+        this.preprocessor = preprocessor;
+        this.yuvConverter = new YuvConverter(preprocessor.getTensorWidth(), preprocessor.getTensorHeight());
+        this.outputBuffer = outputBuffer;
+        this.outputBuffer.order(ByteOrder.nativeOrder());
+        this.outputFloats = outputBuffer.asFloatBuffer();
+        this.pixels = new int[0];
+        this.startTime = 0;
+        this.captureTimeNanos = 0;
+        this.invokeNanos = 0;
+        this.keyframe = true;
+        this.roiRight = 1F;
+        this.roiBottom = 1F;
+    }
+
+    public TensorPreprocessor getPreprocessor() {
+        return preprocessor;
+    }
+
+    public YuvConverter getYuvConverter() {
+        return yuvConverter;
+    }
+
+    public ByteBuffer getOutputBuffer() {
+        return outputBuffer;
+    }
+
+    public FloatBuffer getOutputFloats() {
+        return outputFloats;
+    }
+
+    // Scratch for Bitmap.getPixels, grown to the largest frame seen.
+    public int[] getPixels(int size) {
+        if (pixels.length < size) {
+            pixels = new int[size];
+        }
+        return pixels;
+    }
+
+    // Uptime at which preprocessing of the frame in this slot began.
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    // When the frame was captured, on the SystemClock.elapsedRealtimeNanos() clock.
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    public void setCaptureTimeNanos(long captureTimeNanos) {
+        this.captureTimeNanos = captureTimeNanos;
+    }
+
+    // Time the interpreter took on this slot's input, set by Detector.infer().
+    public long getInvokeNanos() {
+        return invokeNanos;
+    }
+
+    public void setInvokeNanos(long invokeNanos) {
+        this.invokeNanos = invokeNanos;
+    }
+
+    // False when the tracker covers this frame and the interpreter is skipped.
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public void setKeyframe(boolean keyframe) {
+        this.keyframe = keyframe;
+    }
+
+    // Normalized region of the frame that was scaled into the input tensor (see RoiSelector).
+    public void setRoi(float left, float top, float right, float bottom) {
+        this.roiLeft = left;
+        this.roiTop = top;
+        this.roiRight = right;
+        this.roiBottom = bottom;
+    }
+
+    public float getRoiLeft() {
+        return roiLeft;
+    }
+
+    public float getRoiTop() {
+        return roiTop;
+    }
+
+    public float getRoiRight() {
+        return roiRight;
+    }
+
+    public float getRoiBottom() {
+        return roiBottom;
+    }
+
+    public boolean isFullFrame() {
+        return roiLeft == 0F && roiTop == 0F && roiRight == 1F && roiBottom == 1F;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.myapplication;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Slicing-aided inference for high-resolution stills: the frame is cut into overlapping square
+// tiles of tileSize pixels, each tile is scaled into the model input on its own (so small
+// objects keep their pixels), and the per-tile boxes are merged with a class-aware NMS. An
+// optional full-frame pass catches objects larger than a tile. Tiles run concurrently on a
+// DetectorPool, at most parallelism at a time. detect() is meant to be called from one thread.
+public class TiledDetector {
+    private final DetectorPool pool;
+    private final DetectorConfig mergeConfig;
+    private final NonMaxSuppression mergeNms;
+    private final List<DetectionBuffer> tileResults;
+    private final List<Future<DetectionBuffer>> futures;
+    private final DetectionBuffer merged;
+    private int tileSize;
+    private float overlap;
+    private int parallelism;
+    private boolean fullFramePass;
+    private int[] pixels;
+    private long tileCount;
+    private long frameCount;
+    private long totalNanos;
+
+    public TiledDetector(DetectorPool pool) {
+        this.pool = pool;
+        this.mergeConfig = new DetectorConfig();
+        this.mergeConfig.setNmsMode(DetectorConfig.NmsMode.CLASS_AWARE);
+        this.mergeConfig.setIouThreshold(DEFAULT_MERGE_IOU_THRESHOLD);
+        this.mergeNms = new NonMaxSuppression(mergeConfig);
+        this.tileResults = new ArrayList<>();
+        this.futures = new ArrayList<>();
+        this.merged = new DetectionBuffer();
+        this.tileSize = DEFAULT_TILE_SIZE;
+        this.overlap = DEFAULT_OVERLAP;
+        this.parallelism = pool.getSize();
+        this.fullFramePass = true;
+        this.pixels = new int[0];
+    }
+
+    // Side of a tile in source pixels; frames no larger than a tile are processed whole.
+    public void setTileSize(int tileSize) {
+        this.tileSize = Math.max(1, tileSize);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    // Fraction of a tile shared with its neighbour, in [0, 0.9].
+    public void setOverlap(float overlap) {
+        this.overlap = Math.max(0F, Math.min(MAX_OVERLAP, overlap));
+    }
+
+    public float getOverlap() {
+        return overlap;
+    }
+
+    // Tiles in flight at once; more than the pool size only queues work.
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setFullFramePass(boolean fullFramePass) {
+        this.fullFramePass = fullFramePass;
+    }
+
+    public boolean isFullFramePass() {
+        return fullFramePass;
+    }
+
+    // IoU threshold, NMS mode and detection cap used when merging tiles.
+    public DetectorConfig getMergeConfig() {
+        return mergeConfig;
+    }
+
+    public int detect(Bitmap frame, DetectionBuffer out) throws InterruptedException, ExecutionException {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        frame.getPixels(pixels, 0, width, 0, 0, width, height);
+        return detect(pixels, width, height, out);
+    }
+
+    // pixels is only read, by every tile concurrently, and must not change until this returns.
+    public int detect(int[] pixels, int width, int height, DetectionBuffer out)
+            throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        float[] tiles = computeTiles(width, height, tileSize, overlap, fullFramePass);
+        int count = tiles.length / 4;
+        while (tileResults.size() < count) {
+            tileResults.add(new DetectionBuffer());
+        }
+        futures.clear();
+        int submitted = 0;
+        int inFlight = Math.min(parallelism, count);
+        for (; submitted < inFlight; submitted++) {
+            futures.add(submitTile(pixels, width, height, tiles, submitted));
+        }
+        merged.clear();
+        try {
+            for (int i = 0; i < count; i++) {
+                DetectionBuffer result = futures.get(i).get();
+                if (submitted < count) {
+                    futures.add(submitTile(pixels, width, height, tiles, submitted));
+                    submitted++;
+                }
+                for (int j = 0; j < result.size(); j++) {
+                    merged.add(result, j);
+                }
+            }
+        } finally {
+            // Tiles still running read pixels and write tileResults, so let them finish.
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException ignored) {
+                }
+            }
+        }
+        mergeNms.apply(merged, out);
+        tileCount += count;
+        frameCount++;
+        totalNanos += System.nanoTime() - start;
+        return out.size();
+    }
+
+    private Future<DetectionBuffer> submitTile(int[] pixels, int width, int height, float[] tiles, int index) {
+        DetectionBuffer result = tileResults.get(index);
+        int offset = index * 4;
+        return pool.submit(detector -> {
+            detector.detect(pixels, width, height, tiles[offset], tiles[offset + 1], tiles[offset + 2],
+                    tiles[offset + 3], result);
+            return result;
+        });
+    }
+
+    public long getTileCount() {
+        return tileCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    // Tiles per second of wall time spent in detect(), including merging.
+    public float getTilesPerSecond() {
+        return totalNanos == 0 ? 0F : tileCount * 1e9F / totalNanos;
+    }
+
+    public long getAverageFrameNanos() {
+        return frameCount == 0 ? 0 : totalNanos / frameCount;
+    }
+
+    public void resetTimings() {
+        tileCount = 0;
+        frameCount = 0;
+        totalNanos = 0;
+    }
+
+    // Normalized [left, top, right, bottom] of every tile, full frame first when requested. Tiles
+    // step by tileSize * (1 - overlap) and the last row and column are aligned to the far edge.
+    static float[] computeTiles(int width, int height, int tileSize, float overlap, boolean fullFramePass) {
+        int columns = tileCount(width, tileSize, overlap);
+        int rows = tileCount(height, tileSize, overlap);
+        boolean whole = columns == 1 && rows == 1;
+        int extra = fullFramePass && !whole ? 1 : 0;
+        float[] tiles = new float[(rows * columns + extra) * 4];
+        int i = 0;
+        if (extra == 1) {
+            tiles[i++] = 0F;
+            tiles[i++] = 0F;
+            tiles[i++] = 1F;
+            tiles[i++] = 1F;
+        }
+        for (int r = 0; r < rows; r++) {
+            int top = tileStart(r, rows, height, tileSize);
+            int tileHeight = Math.min(tileSize, height);
+            for (int c = 0; c < columns; c++) {
+                int left = tileStart(c, columns, width, tileSize);
+                int tileWidth = Math.min(tileSize, width);
+                tiles[i++] = (float) left / width;
+                tiles[i++] = (float) top / height;
+                tiles[i++] = (float) (left + tileWidth) / width;
+                tiles[i++] = (float) (top + tileHeight) / height;
+            }
+        }
+        return tiles;
+    }
+
+    private static int tileCount(int size, int tileSize, float overlap) {
+        if (size <= tileSize) return 1;
+        int stride = Math.max(1, Math.round(tileSize * (1F - overlap)));
+        return (size - tileSize + stride - 1) / stride + 1;
+    }
+
+    private static int tileStart(int index, int count, int size, int tileSize) {
+        if (count == 1) return 0;
+        // Spread the tiles evenly so the overlap is shared rather than piled onto the last one.
+        return (int) ((long) index * (size - tileSize) / (count - 1));
+    }
+
+    private static final int DEFAULT_TILE_SIZE = 640;
+    private static final float DEFAULT_OVERLAP = 0.2F;
+    private static final float MAX_OVERLAP = 0.9F;
+    private static final float DEFAULT_MERGE_IOU_THRESHOLD = 0.5F;
+}
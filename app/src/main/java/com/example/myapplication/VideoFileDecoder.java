@@ -0,0 +1,139 @@
+package com.example.myapplication;
+
+import android.graphics.Rect;
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Decodes the first video track of a file with MediaCodec, one frame per next() call, into
+// ARGB pixels. Frames larger than maxSide are subsampled by a whole factor while converting,
+// since the model input is far smaller than a 4K frame anyway.
+public class VideoFileDecoder implements FrameDecoder {
+    private final MediaExtractor extractor;
+    private final MediaCodec codec;
+    private final MediaCodec.BufferInfo info;
+    private final int maxSide;
+    private boolean inputDone;
+    private boolean outputDone;
+    private long frameIndex;
+
+    public VideoFileDecoder(String path, int maxSide) throws IOException {
+        this.extractor = new MediaExtractor();
+        this.info = new MediaCodec.BufferInfo();
+        this.maxSide = maxSide;
+        MediaFormat format = null;
+        try {
+            extractor.setDataSource(path);
+            for (int i = 0; i < extractor.getTrackCount() && format == null; i++) {
+                MediaFormat trackFormat = extractor.getTrackFormat(i);
+                String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("video/")) {
+                    extractor.selectTrack(i);
+                    format = trackFormat;
+                }
+            }
+            if (format == null) {
+                throw new IOException("No video track in " + path);
+            }
+            format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
+            this.codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+        } catch (IOException e) {
+            extractor.release();
+            throw e;
+        }
+        codec.configure(format, null, null, 0);
+        codec.start();
+    }
+
+    @Override
+    public boolean next(DecodedFrame frame) throws IOException {
+        while (!outputDone) {
+            if (!inputDone) {
+                queueInput();
+            }
+            int index = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+            if (index < 0) continue;
+            boolean endOfStream = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+            boolean decoded = false;
+            if (info.size > 0) {
+                Image image = codec.getOutputImage(index);
+                if (image != null) {
+                    try {
+                        convert(image, frame);
+                    } finally {
+                        image.close();
+                    }
+                    frame.setIndex(frameIndex++);
+                    frame.setTimestampUs(info.presentationTimeUs);
+                    decoded = true;
+                }
+            }
+            codec.releaseOutputBuffer(index, false);
+            outputDone = endOfStream;
+            if (decoded) return true;
+        }
+        return false;
+    }
+
+    private void queueInput() {
+        int index = codec.dequeueInputBuffer(TIMEOUT_US);
+        if (index < 0) return;
+        ByteBuffer buffer = codec.getInputBuffer(index);
+        int size = extractor.readSampleData(buffer, 0);
+        if (size < 0) {
+            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            inputDone = true;
+        } else {
+            codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+            extractor.advance();
+        }
+    }
+
+    private void convert(Image image, DecodedFrame frame) {
+        Rect crop = image.getCropRect();
+        int left = crop == null ? 0 : crop.left;
+        int top = crop == null ? 0 : crop.top;
+        int sourceWidth = crop == null ? image.getWidth() : crop.width();
+        int sourceHeight = crop == null ? image.getHeight() : crop.height();
+        int step = Math.max(1, (Math.max(sourceWidth, sourceHeight) + maxSide - 1) / maxSide);
+        int width = sourceWidth / step;
+        int height = sourceHeight / step;
+        int[] pixels = frame.setSize(width, height);
+        Image.Plane[] planes = image.getPlanes();
+        ByteBuffer yPlane = planes[0].getBuffer();
+        ByteBuffer uPlane = planes[1].getBuffer();
+        ByteBuffer vPlane = planes[2].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        int uvRowStride = planes[1].getRowStride();
+        int uvPixelStride = planes[1].getPixelStride();
+        for (int row = 0; row < height; row++) {
+            int sy = top + row * step;
+            int yOffset = sy * yRowStride;
+            int uvOffset = (sy >> 1) * uvRowStride;
+            int out = row * width;
+            for (int column = 0; column < width; column++) {
+                int sx = left + column * step;
+                int y = yPlane.get(yOffset + sx * yPixelStride) & 0xFF;
+                int uvIndex = uvOffset + (sx >> 1) * uvPixelStride;
+                int u = (uPlane.get(uvIndex) & 0xFF) - 128;
+                int v = (vPlane.get(uvIndex) & 0xFF) - 128;
+                pixels[out + column] = YuvConverter.yuvToRgb(y, u, v);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        codec.stop();
+        codec.release();
+        extractor.release();
+    }
+
+    private static final long TIMEOUT_US = 10000;
+}
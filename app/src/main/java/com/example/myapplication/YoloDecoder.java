@@ -0,0 +1,142 @@
+package com.example.myapplication;
+
+import java.util.List;
+
+public class YoloDecoder {
+    private float[] maxScores;
+    private int[] maxClasses;
+    private int[] maxQuantized;
+    private float[] dequantized;
+    private float dequantizedScale;
+    private int dequantizedZeroPoint;
+    private boolean dequantizedSigned;
+
+    public YoloDecoder() {
+        this.maxScores = new float[0];
+        this.maxClasses = new int[0];
+        this.maxQuantized = new int[0];
+        this.dequantized = new float[256];
+        this.dequantizedScale = Float.NaN;
+    }
+
+    // The output tensor is channel-major: [cx, cy, w, h, class0, class1, ...] x numElements.
+    // Scores are reduced one channel row at a time so every read is sequential.
+    public int decode(float[] array, int numChannel, int numElements, List<String> labels, float confidenceThreshold, DetectionBuffer out) {
+        out.clear();
+        if (numChannel <= 4 || numElements == 0) return 0;
+        ensureCapacity(numElements);
+        float[] scores = maxScores;
+        int[] classes = maxClasses;
+        System.arraycopy(array, numElements * 4, scores, 0, numElements);
+        for (int c = 0; c < numElements; c++) {
+            classes[c] = 0;
+        }
+        for (int i = 5; i < numChannel; i++) {
+            int offset = numElements * i;
+            int cls = i - 4;
+            for (int c = 0; c < numElements; c++) {
+                float value = array[offset + c];
+                // Strict comparison keeps the first class on ties, like List.indexOf did.
+                if (value > scores[c]) {
+                    scores[c] = value;
+                    classes[c] = cls;
+                }
+            }
+        }
+        for (int c = 0; c < numElements; c++) {
+            float cnf = scores[c];
+            if (cnf > confidenceThreshold) {
+                int cls = classes[c];
+                float cx = array[c];
+                float cy = array[c + numElements];
+                float w = array[c + numElements * 2];
+                float h = array[c + numElements * 3];
+                float x1 = cx - (w / 2F);
+                float y1 = cy - (h / 2F);
+                float x2 = cx + (w / 2F);
+                float y2 = cy + (h / 2F);
+                if (x1 < 0F || x1 > 1F) continue;
+                if (y1 < 0F || y1 > 1F) continue;
+                if (x2 < 0F || x2 > 1F) continue;
+                if (y2 < 0F || y2 > 1F) continue;
+                out.add(x1, y1, x2, y2, cx, cy, w, h, cnf, cls, labels.get(cls));
+            }
+        }
+        return out.size();
+    }
+
+    // Quantized (UINT8 or INT8) output. Raw bytes are mapped to an unsigned code u in 0..255
+    // whose order matches the real values, so the class argmax and the threshold test run on
+    // integers; only anchors that pass have their box and score dequantized.
+    public int decode(byte[] array, int numChannel, int numElements, List<String> labels, float confidenceThreshold,
+                      float scale, int zeroPoint, boolean signed, DetectionBuffer out) {
+        out.clear();
+        if (numChannel <= 4 || numElements == 0) return 0;
+        ensureCapacity(numElements);
+        float[] real = dequantizationTable(scale, zeroPoint, signed);
+        int flip = signed ? 0x80 : 0;
+        // Smallest code whose real value passes the float threshold, evaluated exactly as dequantized.
+        int threshold = 256;
+        for (int u = 255; u >= 0 && real[u] > confidenceThreshold; u--) {
+            threshold = u;
+        }
+        int[] scores = maxQuantized;
+        int[] classes = maxClasses;
+        int offset = numElements * 4;
+        for (int c = 0; c < numElements; c++) {
+            scores[c] = (array[offset + c] ^ flip) & 0xFF;
+            classes[c] = 0;
+        }
+        for (int i = 5; i < numChannel; i++) {
+            offset = numElements * i;
+            int cls = i - 4;
+            for (int c = 0; c < numElements; c++) {
+                int value = (array[offset + c] ^ flip) & 0xFF;
+                if (value > scores[c]) {
+                    scores[c] = value;
+                    classes[c] = cls;
+                }
+            }
+        }
+        for (int c = 0; c < numElements; c++) {
+            if (scores[c] < threshold) continue;
+            int cls = classes[c];
+            float cnf = real[scores[c]];
+            float cx = real[(array[c] ^ flip) & 0xFF];
+            float cy = real[(array[c + numElements] ^ flip) & 0xFF];
+            float w = real[(array[c + numElements * 2] ^ flip) & 0xFF];
+            float h = real[(array[c + numElements * 3] ^ flip) & 0xFF];
+            float x1 = cx - (w / 2F);
+            float y1 = cy - (h / 2F);
+            float x2 = cx + (w / 2F);
+            float y2 = cy + (h / 2F);
+            if (x1 < 0F || x1 > 1F) continue;
+            if (y1 < 0F || y1 > 1F) continue;
+            if (x2 < 0F || x2 > 1F) continue;
+            if (y2 < 0F || y2 > 1F) continue;
+            out.add(x1, y1, x2, y2, cx, cy, w, h, cnf, cls, labels.get(cls));
+        }
+        return out.size();
+    }
+
+    private float[] dequantizationTable(float scale, int zeroPoint, boolean signed) {
+        if (scale != dequantizedScale || zeroPoint != dequantizedZeroPoint || signed != dequantizedSigned) {
+            int bias = signed ? 128 : 0;
+            for (int u = 0; u < 256; u++) {
+                dequantized[u] = ((u - bias) - zeroPoint) * scale;
+            }
+            dequantizedScale = scale;
+            dequantizedZeroPoint = zeroPoint;
+            dequantizedSigned = signed;
+        }
+        return dequantized;
+    }
+
+    private void ensureCapacity(int numElements) {
+        if (maxScores.length < numElements) {
+            maxScores = new float[numElements];
+            maxClasses = new int[numElements];
+            maxQuantized = new int[numElements];
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+// Converts YUV_420_888 frames straight into the detector's input tensor. The frame is rotated
+// upright, mirrored for the front camera, optionally cropped to a normalized region of the
+// upright image, resized with the same nearest-neighbour sampling as the bitmap path and
+// converted with full-range BT.601.
+public class YuvConverter {
+    private final int tensorWidth;
+    private final int tensorHeight;
+    private final int[] row;
+    private final int[] columnMap;
+    private final int[] rowMap;
+    private float cropLeft;
+    private float cropTop;
+    private float cropRight;
+    private float cropBottom;
+    private int mappedWidth;
+    private int mappedHeight;
+    private int mappedRotation;
+    private boolean mappedMirrored;
+    private boolean mapsValid;
+
+    public YuvConverter(int tensorWidth, int tensorHeight) {
+        this.tensorWidth = tensorWidth;
+        this.tensorHeight = tensorHeight;
+        this.row = new int[tensorWidth];
+        this.columnMap = new int[tensorWidth];
+        this.rowMap = new int[tensorHeight];
+        this.cropLeft = 0F;
+        this.cropTop = 0F;
+        this.cropRight = 1F;
+        this.cropBottom = 1F;
+        this.mapsValid = false;
+    }
+
+    // Region of the upright, possibly mirrored frame, in [0, 1] coordinates, fed to the tensor.
+    public void setCrop(float left, float top, float right, float bottom) {
+        if (left == cropLeft && top == cropTop && right == cropRight && bottom == cropBottom) return;
+        cropLeft = left;
+        cropTop = top;
+        cropRight = right;
+        cropBottom = bottom;
+        mapsValid = false;
+    }
+
+    public void convert(YuvFrame frame, TensorPreprocessor out) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int rotation = ((frame.getRotationDegrees() % 360) + 360) % 360;
+        boolean mirrored = frame.isMirrored();
+        if (!mapsValid || width != mappedWidth || height != mappedHeight || rotation != mappedRotation
+                || mirrored != mappedMirrored) {
+            buildMaps(width, height, rotation, mirrored);
+        }
+        ByteBuffer yPlane = frame.getYPlane();
+        ByteBuffer uPlane = frame.getUPlane();
+        ByteBuffer vPlane = frame.getVPlane();
+        int yRowStride = frame.getYRowStride();
+        int uvRowStride = frame.getUvRowStride();
+        int uvPixelStride = frame.getUvPixelStride();
+        out.beginFrame();
+        for (int ty = 0; ty < tensorHeight; ty++) {
+            int uy = rowMap[ty];
+            for (int tx = 0; tx < tensorWidth; tx++) {
+                int ux = columnMap[tx];
+                // Map the upright coordinate back onto the sensor image.
+                int sx;
+                int sy;
+                switch (rotation) {
+                    case 90:
+                        sx = uy;
+                        sy = height - 1 - ux;
+                        break;
+                    case 180:
+                        sx = width - 1 - ux;
+                        sy = height - 1 - uy;
+                        break;
+                    case 270:
+                        sx = width - 1 - uy;
+                        sy = ux;
+                        break;
+                    default:
+                        sx = ux;
+                        sy = uy;
+                        break;
+                }
+                int y = yPlane.get(sy * yRowStride + sx) & 0xFF;
+                int uvIndex = (sy >> 1) * uvRowStride + (sx >> 1) * uvPixelStride;
+                int u = (uPlane.get(uvIndex) & 0xFF) - 128;
+                int v = (vPlane.get(uvIndex) & 0xFF) - 128;
+                row[tx] = yuvToRgb(y, u, v);
+            }
+            out.putRow(row);
+        }
+    }
+
+    // Mirroring only flips the column map, so the crop applies to the image as displayed.
+    private void buildMaps(int width, int height, int rotation, boolean mirrored) {
+        boolean swap = rotation == 90 || rotation == 270;
+        int uprightWidth = swap ? height : width;
+        int uprightHeight = swap ? width : height;
+        int left = Math.round(cropLeft * uprightWidth);
+        int top = Math.round(cropTop * uprightHeight);
+        int cropWidth = Math.max(1, Math.round(cropRight * uprightWidth) - left);
+        int cropHeight = Math.max(1, Math.round(cropBottom * uprightHeight) - top);
+        for (int tx = 0; tx < tensorWidth; tx++) {
+            int column = Math.min(uprightWidth - 1, left + TensorPreprocessor.sampleIndex(tx, cropWidth, tensorWidth));
+            columnMap[tx] = mirrored ? uprightWidth - 1 - column : column;
+        }
+        for (int ty = 0; ty < tensorHeight; ty++) {
+            rowMap[ty] = Math.min(uprightHeight - 1, top + TensorPreprocessor.sampleIndex(ty, cropHeight, tensorHeight));
+        }
+        mappedWidth = width;
+        mappedHeight = height;
+        mappedRotation = rotation;
+        mappedMirrored = mirrored;
+        mapsValid = true;
+    }
+
+    // Full-range BT.601 in 16.16 fixed point; u and v are already centred on zero.
+    static int yuvToRgb(int y, int u, int v) {
+        int yScaled = y << 16;
+        int r = clamp((yScaled + 91881 * v + 32768) >> 16);
+        int g = clamp((yScaled - 22554 * u - 46802 * v + 32768) >> 16);
+        int b = clamp((yScaled + 116130 * u + 32768) >> 16);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
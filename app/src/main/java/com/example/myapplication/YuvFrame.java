@@ -0,0 +1,87 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+
+// View over the three planes of a YUV_420_888 frame. Nothing is copied; set() just points at
+// the planes, so a frame is only valid while the image it came from is open.
+public class YuvFrame {
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int yRowStride;
+    private int uvRowStride;
+    private int uvPixelStride;
+    private int width;
+    private int height;
+    private int rotationDegrees;
+    private boolean mirrored;
+    private long timestampNanos;
+
+    public void set(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int yRowStride, int uvRowStride,
+                    int uvPixelStride, int width, int height, int rotationDegrees) {
+        this.yPlane = yPlane;
+        this.uPlane = uPlane;
+        this.vPlane = vPlane;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+    }
+
+    public ByteBuffer getYPlane() {
+        return yPlane;
+    }
+
+    public ByteBuffer getUPlane() {
+        return uPlane;
+    }
+
+    public ByteBuffer getVPlane() {
+        return vPlane;
+    }
+
+    public int getYRowStride() {
+        return yRowStride;
+    }
+
+    public int getUvRowStride() {
+        return uvRowStride;
+    }
+
+    public int getUvPixelStride() {
+        return uvPixelStride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Clockwise rotation that turns the sensor image upright for the current display.
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    // True when the upright frame is flipped horizontally, as the front camera's preview is.
+    public boolean isMirrored() {
+        return mirrored;
+    }
+
+    public void setMirrored(boolean mirrored) {
+        this.mirrored = mirrored;
+    }
+
+    // Capture time on the SystemClock.elapsedRealtimeNanos() clock, or 0 if unknown.
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public void setTimestampNanos(long timestampNanos) {
+        this.timestampNanos = timestampNanos;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DetectionLogTest {
+    private static final List<String> LABELS = Arrays.asList("person", "car", "gr\u00f6\u00dfe");
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("detections", ".dlog");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void toHalf_roundTripsWithinHalfPrecision() {
+        float[] exact = {0F, 1F, -2F, 0.5F, 0.25F, 65504F, 1F / 1024F, 5.9604645e-8F};
+        for (float value : exact) {
+            assertEquals(value, DetectionLog.fromHalf(DetectionLog.toHalf(value)), 0F);
+        }
+        for (int i = 0; i <= 1000; i++) {
+            float value = i / 1000F;
+            // 11 significant bits: relative error at most 2^-11.
+            assertEquals(value, DetectionLog.fromHalf(DetectionLog.toHalf(value)), value / 2048F + 1e-7F);
+        }
+        assertEquals(Float.POSITIVE_INFINITY, DetectionLog.fromHalf(DetectionLog.toHalf(1e6F)), 0F);
+        assertTrue(Float.isNaN(DetectionLog.fromHalf(DetectionLog.toHalf(Float.NaN))));
+        // Ties round to even: 1 + 2^-11 is halfway between 1 and 1 + 2^-10.
+        assertEquals(1F, DetectionLog.fromHalf(DetectionLog.toHalf(1F + 1F / 2048F)), 0F);
+    }
+
+    @Test
+    public void writer_roundTripsRecordsAndDictionary() throws IOException {
+        DetectionLogWriter writer = new DetectionLogWriter(file, LABELS, false);
+        DetectionBuffer detections = new DetectionBuffer();
+        addBox(detections, 0.1F, 0.2F, 0.3F, 0.4F, 0.91F, 2);
+        addBox(detections, 0.5F, 0.5F, 0.75F, 0.9F, 0.6F, 0);
+        writer.write(3, 100000, detections);
+        writer.write(4, 133333, new DetectionBuffer());
+        writer.close();
+        assertEquals(file.length(), 56 + 2 * 36);
+
+        DetectionLogReader reader = new DetectionLogReader(file);
+        assertEquals(LABELS, reader.getLabels());
+        assertEquals(2, reader.size());
+        assertEquals(100000, reader.getTimestampUs(1));
+        assertEquals(3, reader.getFrame(1));
+        assertEquals(0, reader.getClassId(1));
+        assertEquals("gr\u00f6\u00dfe", reader.getLabel(reader.getClassId(0)));
+        assertEquals(0.91F, reader.getConfidence(0), 0F);
+        assertEquals(0.1F, reader.getX1(0), 0F);
+        assertEquals(0.2F, reader.getY1(0), 0F);
+        assertEquals(0.3F, reader.getX2(0), 0F);
+        assertEquals(0.4F, reader.getY2(0), 0F);
+    }
+
+    @Test
+    public void reader_countsByClassAndTimeOverManyRecords() throws IOException {
+        DetectionLogWriter writer = new DetectionLogWriter(file, LABELS);
+        DetectionBuffer detections = new DetectionBuffer();
+        int frames = 100000;
+        for (int frame = 0; frame < frames; frame++) {
+            detections.clear();
+            addBox(detections, 0.1F, 0.1F, 0.2F, 0.2F, 0.9F, frame % 3);
+            addBox(detections, 0.4F, 0.4F, 0.6F, 0.6F, 0.8F, 1);
+            writer.write(frame, frame * 1000L, detections);
+        }
+        // Readable before close: the record count is kept current in the header.
+        writer.flush();
+        assertEquals(2 * frames, new DetectionLogReader(file).size());
+        writer.close();
+        assertEquals(56 + 2L * frames * 24, file.length());
+
+        DetectionLogReader reader = new DetectionLogReader(file);
+        long[] counts = reader.countByClass();
+        assertEquals(33334, counts[0]);
+        assertEquals(frames + 33333, counts[1]);
+        assertEquals(33333, counts[2]);
+        // Frames 10..19 inclusive.
+        long[] window = reader.countByClass(10000, 20000);
+        assertEquals(20, window[0] + window[1] + window[2]);
+        assertEquals(20, reader.firstAtOrAfter(10000));
+        assertEquals(reader.size(), reader.firstAtOrAfter(Long.MAX_VALUE));
+        assertEquals(0.9F, reader.getConfidence(0), 0.9F / 2048F);
+        assertEquals(0.6F, reader.getX2(1), 0.6F / 2048F);
+    }
+
+    @Test
+    public void reader_rejectsOtherFiles() throws IOException {
+        Files.write(file.toPath(), new byte[64]);
+        try {
+            new DetectionLogReader(file);
+            fail("read a file without the log header");
+        } catch (IOException expected) {
+            // Expected.
+        }
+    }
+
+    private static void addBox(DetectionBuffer buffer, float x1, float y1, float x2, float y2, float cnf, int cls) {
+        buffer.add(x1, y1, x2, y2, (x1 + x2) / 2F, (y1 + y2) / 2F, x2 - x1, y2 - y1, cnf, cls, LABELS.get(cls));
+    }
+}
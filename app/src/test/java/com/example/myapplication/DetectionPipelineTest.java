@@ -0,0 +1,109 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DetectionPipelineTest {
+    @Test
+    public void pipeline_deliversResultsInOrderAndOverlapsStages() throws InterruptedException {
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> released = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        // Slot layout: [frame id, inference result].
+        DetectionPipeline.Stages<Integer, int[]> stages = new DetectionPipeline.Stages<Integer, int[]>() {
+            @Override
+            public int[] createSlot() {
+                return new int[2];
+            }
+
+            @Override
+            public void preprocess(Integer frame, int[] slot) {
+                work(active, maxActive);
+                slot[0] = frame;
+            }
+
+            @Override
+            public void infer(int[] slot) {
+                work(active, maxActive);
+                slot[1] = slot[0] * 10;
+            }
+
+            @Override
+            public void postprocess(int[] slot) {
+                work(active, maxActive);
+                results.add(slot[1]);
+            }
+        };
+        DetectionPipeline<Integer, int[]> pipeline = new DetectionPipeline<>("test", stages, released::add);
+        pipeline.start();
+        int frames = 40;
+        for (int i = 1; i <= frames; i++) {
+            pipeline.submit(i);
+            Thread.sleep(2);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!results.contains(frames * 10) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        pipeline.stop();
+        pipeline.join();
+
+        assertTrue(results.contains(frames * 10));
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue("out of order at " + i, results.get(i) > results.get(i - 1));
+        }
+        for (int result : results) {
+            assertEquals(0, result % 10);
+        }
+        assertEquals(frames, released.size());
+        assertEquals(frames, results.size() + pipeline.getDroppedCount());
+        assertTrue("stages never overlapped", maxActive.get() >= 2);
+    }
+
+    @Test
+    public void stop_releasesPendingFrame() throws InterruptedException {
+        List<Integer> released = Collections.synchronizedList(new ArrayList<>());
+        DetectionPipeline.Stages<Integer, int[]> stages = new DetectionPipeline.Stages<Integer, int[]>() {
+            @Override
+            public int[] createSlot() {
+                return new int[1];
+            }
+
+            @Override
+            public void preprocess(Integer frame, int[] slot) {
+            }
+
+            @Override
+            public void infer(int[] slot) {
+            }
+
+            @Override
+            public void postprocess(int[] slot) {
+            }
+        };
+        // Never started, so the frame stays in the mailbox until stop().
+        DetectionPipeline<Integer, int[]> pipeline = new DetectionPipeline<>("test", stages, released::add);
+        pipeline.submit(1);
+        pipeline.stop();
+        assertEquals(1, released.size());
+        assertFalse(pipeline.submit(2));
+    }
+
+    private static void work(AtomicInteger active, AtomicInteger maxActive) {
+        int now = active.incrementAndGet();
+        maxActive.accumulateAndGet(now, Math::max);
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.decrementAndGet();
+    }
+}
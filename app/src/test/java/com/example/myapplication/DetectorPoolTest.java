@@ -0,0 +1,68 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DetectorPoolTest {
+    @Test
+    public void submit_givesEachTaskExclusiveDetector() throws Exception {
+        DetectorPool pool = new DetectorPool(detectors(3));
+        Set<Detector> inUse = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(pool.submit(detector -> {
+                boolean exclusive = inUse.add(detector);
+                Thread.sleep(2);
+                inUse.remove(detector);
+                return exclusive;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        pool.close();
+        assertEquals(30, pool.getCompletedCount());
+    }
+
+    @Test
+    public void submit_scalesWithPoolSize() throws Exception {
+        long single = runTimed(1, 8);
+        long quad = runTimed(4, 8);
+        // Eight 20 ms tasks: about 160 ms on one detector, 40 ms on four.
+        assertTrue("1 worker " + single + " ms, 4 workers " + quad + " ms", quad * 2 < single);
+    }
+
+    private static long runTimed(int size, int tasks) throws Exception {
+        DetectorPool pool = new DetectorPool(detectors(size));
+        long start = System.nanoTime();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(pool.submit(detector -> {
+                Thread.sleep(20);
+                return 0;
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        pool.close();
+        return elapsed;
+    }
+
+    private static List<Detector> detectors(int count) {
+        List<Detector> detectors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            detectors.add(new Detector(null, "model.tflite", "labels.txt", null));
+        }
+        return detectors;
+    }
+}
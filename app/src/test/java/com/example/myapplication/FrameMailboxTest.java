@@ -0,0 +1,53 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameMailboxTest {
+    @Test
+    public void offer_replacesPendingFrameAndReleasesIt() throws InterruptedException {
+        List<Integer> released = new ArrayList<>();
+        FrameMailbox<Integer> mailbox = new FrameMailbox<>(released::add);
+        assertTrue(mailbox.offer(1));
+        assertTrue(mailbox.offer(2));
+        assertTrue(mailbox.offer(3));
+        assertEquals(Integer.valueOf(3), mailbox.take());
+        assertEquals(2, released.size());
+        assertEquals(Integer.valueOf(1), released.get(0));
+        assertEquals(Integer.valueOf(2), released.get(1));
+        assertEquals(3, mailbox.getOfferedCount());
+        assertEquals(2, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void close_releasesPendingFrameAndRejectsNewOnes() throws InterruptedException {
+        List<Integer> released = new ArrayList<>();
+        FrameMailbox<Integer> mailbox = new FrameMailbox<>(released::add);
+        mailbox.offer(1);
+        mailbox.close();
+        assertFalse(mailbox.offer(2));
+        assertNull(mailbox.take());
+        assertEquals(2, released.size());
+    }
+
+    @Test
+    public void take_wakesUpWhenFrameArrives() throws InterruptedException {
+        FrameMailbox<Integer> mailbox = new FrameMailbox<>(frame -> { });
+        Integer[] received = new Integer[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = mailbox.take();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        Thread.sleep(20);
+        mailbox.offer(7);
+        consumer.join(1000);
+        assertEquals(Integer.valueOf(7), received[0]);
+    }
+}
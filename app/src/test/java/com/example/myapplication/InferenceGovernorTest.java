@@ -0,0 +1,65 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InferenceGovernorTest {
+    @Test
+    public void onFrame_addsThreadsWhileTheyHelp() {
+        InferenceGovernor governor = new InferenceGovernor(33F, 1, 1, 8, 4);
+        // 120 ms of work that scales up to 4 cores; more threads only add overhead.
+        run(governor, 40, 120);
+        assertEquals(4, governor.getThreadCount());
+        // 38 ms at four threads is still over budget, so every other frame is skipped.
+        assertEquals(2, governor.getStride());
+    }
+
+    @Test
+    public void onFrame_raisesStrideWhenThreadsAreExhausted() {
+        InferenceGovernor governor = new InferenceGovernor(33F, 1, 1, 2, 4);
+        run(governor, 40, 200);
+        assertEquals(2, governor.getThreadCount());
+        // 100 ms per frame against a 33 ms budget: infer every fourth frame at most.
+        assertEquals(4, governor.getStride());
+    }
+
+    @Test
+    public void onFrame_givesThreadsBackWithHeadroom() {
+        InferenceGovernor governor = new InferenceGovernor(33F, 4, 1, 8, 4);
+        run(governor, 40, 20);
+        // 20 ms of work: one thread fits the budget, two would be wasted.
+        assertEquals(1, governor.getThreadCount());
+        assertEquals(1, governor.getStride());
+    }
+
+    @Test
+    public void setMaxThreads_capsThreadCount() {
+        InferenceGovernor governor = new InferenceGovernor(33F, 4, 1, 8, 4);
+        governor.setMaxThreads(2);
+        assertEquals(2, governor.getThreadCount());
+    }
+
+    @Test
+    public void shouldProcess_followsStride() {
+        InferenceGovernor governor = new InferenceGovernor(10F, 1, 1, 1, 3);
+        for (int i = 0; i < 15; i++) {
+            governor.onFrame(30);
+        }
+        assertEquals(3, governor.getStride());
+        int processed = 0;
+        for (int i = 0; i < 9; i++) {
+            if (governor.shouldProcess()) processed++;
+        }
+        assertEquals(3, processed);
+        assertEquals(6, governor.getSkippedFrames());
+    }
+
+    private static void run(InferenceGovernor governor, int windows, float work) {
+        for (int frame = 0; frame < windows * 15; frame++) {
+            int threads = governor.getThreadCount();
+            float millis = work / Math.min(threads, 4) + 2F * threads;
+            governor.onFrame(Math.round(millis));
+        }
+    }
+}
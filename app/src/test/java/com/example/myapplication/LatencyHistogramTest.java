@@ -0,0 +1,78 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void snapshot_reportsPercentilesOfRecordedSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(128);
+        for (int i = 100; i >= 1; i--) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Stats stats = histogram.snapshot();
+        assertEquals(100, stats.getCount());
+        assertEquals(100, stats.getWindowSize());
+        assertEquals(50000, stats.getP50Nanos());
+        assertEquals(90000, stats.getP90Nanos());
+        assertEquals(99000, stats.getP99Nanos());
+        assertEquals(100000, stats.getMaxNanos());
+        assertEquals(50500, stats.getMeanNanos());
+    }
+
+    @Test
+    public void record_keepsOnlyTheMostRecentWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        assertEquals(128, histogram.getCapacity());
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Stats stats = histogram.snapshot();
+        assertEquals(1000, stats.getCount());
+        assertEquals(128, stats.getWindowSize());
+        // Samples 872..999 remain.
+        assertEquals(872 + 63, stats.getP50Nanos());
+        assertEquals(999, stats.getMaxNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getWindowSize());
+        histogram.record(7);
+        assertEquals(7, histogram.snapshot().getMaxNanos());
+    }
+
+    @Test
+    public void record_countsEverySampleFromConcurrentWriters() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(5);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram.Stats stats = histogram.snapshot();
+        assertEquals(40000, stats.getCount());
+        assertEquals(5, stats.getP99Nanos());
+    }
+
+    @Test
+    public void format_listsOnlyStagesWithSamples() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.record(PipelineMetrics.Stage.INVOKE, 12500000L);
+        metrics.record(PipelineMetrics.Stage.NMS, 250000L);
+        String[] lines = metrics.snapshot().format();
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("invoke") && lines[0].contains("12.50"));
+        assertTrue(lines[1], lines[1].startsWith("nms") && lines[1].contains("0.25"));
+    }
+}
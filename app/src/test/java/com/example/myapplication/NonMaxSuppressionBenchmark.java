@@ -0,0 +1,64 @@
+package com.example.myapplication;
+
+import java.util.List;
+import java.util.Random;
+
+// Compares NonMaxSuppression with the original list-based applyNMS. Run main() from the IDE;
+// it is not a unit test so it stays out of the regular test task.
+public class NonMaxSuppressionBenchmark {
+    private static final float IOU_THRESHOLD = 0.5F;
+    private static final int MAX_DETECTIONS = 100;
+
+    public static void main(String[] args) {
+        for (int size : new int[]{100, 1000, 8000}) {
+            List<BoundingBox> boxes = ReferenceNms.crowdedScene(new Random(size), size, 3, 0.1F);
+            DetectionBuffer input = new DetectionBuffer();
+            input.setBoundingBoxes(boxes);
+            DetectionBuffer output = new DetectionBuffer();
+            NonMaxSuppression nms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            nms.getConfig().setSpatialIndexEnabled(false);
+            NonMaxSuppression capped = new NonMaxSuppression(IOU_THRESHOLD, MAX_DETECTIONS, Integer.MAX_VALUE);
+            capped.getConfig().setSpatialIndexEnabled(false);
+            int iterations = Math.max(3, 200000 / size);
+
+            long reference = time(iterations, () -> ReferenceNms.applyNMS(boxes, IOU_THRESHOLD));
+            long indexed = time(iterations, () -> nms.apply(input, output));
+            long indexedCapped = time(iterations, () -> capped.apply(input, output));
+            System.out.printf("candidates=%5d  reference=%10.1f us  indexed=%9.1f us (%.1fx)  capped@%d=%9.1f us (%.1fx)%n",
+                    size, reference / 1000.0, indexed / 1000.0, (double) reference / indexed,
+                    MAX_DETECTIONS, indexedCapped / 1000.0, (double) reference / indexedCapped);
+            for (DetectorConfig.NmsMode mode : DetectorConfig.NmsMode.values()) {
+                capped.getConfig().setNmsMode(mode);
+                capped.resetTimings();
+                time(iterations, () -> capped.apply(input, output));
+                System.out.printf("    %-14s %9.1f us  kept=%d%n", mode, capped.getAverageNanos(mode) / 1000.0, output.size());
+            }
+        }
+        // Dense small objects (shelves, crowds): many boxes survive, so pruning by grid cell matters most.
+        for (int size : new int[]{1000, 8000}) {
+            DetectionBuffer input = new DetectionBuffer();
+            input.setBoundingBoxes(ReferenceNms.crowdedScene(new Random(size), size, 3, 0.02F));
+            DetectionBuffer output = new DetectionBuffer();
+            NonMaxSuppression exhaustive = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            exhaustive.getConfig().setSpatialIndexEnabled(false);
+            NonMaxSuppression gridded = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            int iterations = Math.max(3, 200000 / size);
+            long plain = time(iterations, () -> exhaustive.apply(input, output));
+            long grid = time(iterations, () -> gridded.apply(input, output));
+            System.out.printf("small objects=%5d  exhaustive=%9.1f us  grid=%8.1f us (%.1fx)  kept=%d%n",
+                    size, plain / 1000.0, grid / 1000.0, (double) plain / grid, output.size());
+        }
+    }
+
+    // Returns the mean nanoseconds per call after an equal number of warm-up calls.
+    private static long time(int iterations, Runnable body) {
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NonMaxSuppressionTest {
+    private static final float IOU_THRESHOLD = 0.5F;
+
+    @Test
+    public void apply_matchesReferenceImplementation() {
+        Random random = new Random(7);
+        NonMaxSuppression nms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        DetectionBuffer input = new DetectionBuffer();
+        DetectionBuffer output = new DetectionBuffer();
+        for (int size : new int[]{1, 10, 100, 1000}) {
+            List<BoundingBox> boxes = ReferenceNms.crowdedScene(random, size, 3, 0.2F);
+            input.setBoundingBoxes(boxes);
+            List<BoundingBox> expected = ReferenceNms.applyNMS(boxes, IOU_THRESHOLD);
+            nms.apply(input, output);
+            List<BoundingBox> actual = output.toBoundingBoxes();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                YoloDecoderTest.assertSameBox(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void apply_stopsAtMaxDetections() {
+        Random random = new Random(11);
+        DetectionBuffer input = new DetectionBuffer();
+        input.setBoundingBoxes(ReferenceNms.crowdedScene(random, 500, 1, 0.05F));
+        DetectionBuffer output = new DetectionBuffer();
+        new NonMaxSuppression(IOU_THRESHOLD, 5, Integer.MAX_VALUE).apply(input, output);
+        assertEquals(5, output.size());
+        for (int i = 1; i < output.size(); i++) {
+            assertTrue(output.getCnf(i - 1) >= output.getCnf(i));
+        }
+    }
+
+    @Test
+    public void apply_onlyConsidersTopK() {
+        DetectionBuffer input = new DetectionBuffer();
+        input.add(0F, 0F, 0.1F, 0.1F, 0.05F, 0.05F, 0.1F, 0.1F, 0.8F, 0, "a");
+        input.add(0.5F, 0.5F, 0.6F, 0.6F, 0.55F, 0.55F, 0.1F, 0.1F, 0.9F, 0, "a");
+        DetectionBuffer output = new DetectionBuffer();
+        new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, 1).apply(input, output);
+        assertEquals(1, output.size());
+        assertEquals(0.9F, output.getCnf(0), 0F);
+    }
+
+    @Test
+    public void classAware_keepsOverlappingBoxesOfDifferentClasses() {
+        DetectionBuffer input = new DetectionBuffer();
+        input.add(0.1F, 0.1F, 0.5F, 0.5F, 0.3F, 0.3F, 0.4F, 0.4F, 0.9F, 0, "a");
+        input.add(0.12F, 0.1F, 0.52F, 0.5F, 0.32F, 0.3F, 0.4F, 0.4F, 0.85F, 1, "b");
+        input.add(0.11F, 0.1F, 0.51F, 0.5F, 0.31F, 0.3F, 0.4F, 0.4F, 0.8F, 0, "a");
+        DetectionBuffer output = new DetectionBuffer();
+        NonMaxSuppression nms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        nms.apply(input, output);
+        assertEquals(1, output.size());
+        nms.getConfig().setNmsMode(DetectorConfig.NmsMode.CLASS_AWARE);
+        nms.apply(input, output);
+        assertEquals(2, output.size());
+        assertEquals(0, output.getCls(0));
+        assertEquals(1, output.getCls(1));
+    }
+
+    @Test
+    public void classAware_matchesPerClassReference() {
+        Random random = new Random(3);
+        List<BoundingBox> boxes = ReferenceNms.crowdedScene(random, 600, 4, 0.2F);
+        DetectionBuffer input = new DetectionBuffer();
+        input.setBoundingBoxes(boxes);
+        DetectionBuffer output = new DetectionBuffer();
+        NonMaxSuppression nms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        nms.getConfig().setNmsMode(DetectorConfig.NmsMode.CLASS_AWARE);
+        nms.apply(input, output);
+        int expected = 0;
+        for (int cls = 0; cls < 4; cls++) {
+            List<BoundingBox> sameClass = new java.util.ArrayList<>();
+            for (BoundingBox box : boxes) {
+                if (box.getCls() == cls) sameClass.add(box);
+            }
+            expected += ReferenceNms.applyNMS(sameClass, IOU_THRESHOLD).size();
+        }
+        assertEquals(expected, output.size());
+    }
+
+    @Test
+    public void softNms_decaysInsteadOfDropping() {
+        DetectionBuffer input = new DetectionBuffer();
+        input.add(0.1F, 0.1F, 0.5F, 0.5F, 0.3F, 0.3F, 0.4F, 0.4F, 0.9F, 0, "a");
+        input.add(0.2F, 0.1F, 0.6F, 0.5F, 0.4F, 0.3F, 0.4F, 0.4F, 0.85F, 0, "a");
+        DetectionBuffer output = new DetectionBuffer();
+        NonMaxSuppression nms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        nms.getConfig().setSoftNmsScoreThreshold(0.1F);
+        nms.getConfig().setNmsMode(DetectorConfig.NmsMode.SOFT_LINEAR);
+        nms.apply(input, output);
+        float iou = 0.3F * 0.4F / (0.16F + 0.16F - 0.3F * 0.4F);
+        assertEquals(2, output.size());
+        assertEquals(0.9F, output.getCnf(0), 0F);
+        assertEquals(0.85F * (1F - iou), output.getCnf(1), 1e-5F);
+
+        nms.getConfig().setNmsMode(DetectorConfig.NmsMode.SOFT_GAUSSIAN);
+        nms.apply(input, output);
+        assertEquals(2, output.size());
+        assertEquals(0.85F * (float) Math.exp(-(iou * iou) / 0.5F), output.getCnf(1), 1e-5F);
+        assertEquals(1, nms.getRunCount(DetectorConfig.NmsMode.SOFT_GAUSSIAN));
+        assertEquals(1, nms.getRunCount(DetectorConfig.NmsMode.SOFT_LINEAR));
+    }
+
+    @Test
+    public void spatialIndex_matchesExhaustiveSearch() {
+        Random random = new Random(5);
+        DetectionBuffer input = new DetectionBuffer();
+        DetectionBuffer withGrid = new DetectionBuffer();
+        DetectionBuffer withoutGrid = new DetectionBuffer();
+        NonMaxSuppression gridNms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        NonMaxSuppression plainNms = new NonMaxSuppression(IOU_THRESHOLD, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        plainNms.getConfig().setSpatialIndexEnabled(false);
+        for (DetectorConfig.NmsMode mode : new DetectorConfig.NmsMode[]{DetectorConfig.NmsMode.CLASS_AGNOSTIC, DetectorConfig.NmsMode.CLASS_AWARE}) {
+            gridNms.getConfig().setNmsMode(mode);
+            plainNms.getConfig().setNmsMode(mode);
+            for (float maxSize : new float[]{0.02F, 0.1F, 0.6F}) {
+                input.setBoundingBoxes(ReferenceNms.crowdedScene(random, 3000, 5, maxSize));
+                gridNms.apply(input, withGrid);
+                plainNms.apply(input, withoutGrid);
+                List<BoundingBox> expected = withoutGrid.toBoundingBoxes();
+                List<BoundingBox> actual = withGrid.toBoundingBoxes();
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    YoloDecoderTest.assertSameBox(expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ObjectTrackerTest {
+    @Test
+    public void predict_followsConstantVelocityBetweenKeyframes() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        float velocity = 0.01F;
+        int trackId = BoundingBox.NO_TRACK;
+        for (int frame = 0; frame < 60; frame++) {
+            float cx = 0.2F + velocity * frame;
+            if (frame % 5 == 0) {
+                detections.clear();
+                addBox(detections, cx, 0.5F, 0.1F, 0.2F, 0);
+                tracker.update(detections, out);
+                assertEquals(1, out.size());
+                if (trackId == BoundingBox.NO_TRACK) trackId = out.getTrackId(0);
+                assertEquals(trackId, out.getTrackId(0));
+                assertEquals(cx, out.getCx(0), 0F);
+            } else {
+                tracker.predict(out);
+                assertEquals(1, out.size());
+                assertEquals(trackId, out.getTrackId(0));
+                // Once the velocity has been learned, predictions stay close to the true path.
+                if (frame > 20) {
+                    assertEquals(cx, out.getCx(0), 0.005F);
+                    assertEquals(0.5F, out.getCy(0), 0.005F);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void update_keepsIdsForSeparateObjects() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(detections, 0.2F, 0.5F, 0.1F, 0.1F, 0);
+        addBox(detections, 0.8F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        int left = out.getTrackId(0), right = out.getTrackId(1);
+        assertNotEquals(left, right);
+
+        // Same objects, listed in the opposite order and slightly moved.
+        detections.clear();
+        addBox(detections, 0.78F, 0.5F, 0.1F, 0.1F, 0);
+        addBox(detections, 0.22F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        assertEquals(right, out.getTrackId(0));
+        assertEquals(left, out.getTrackId(1));
+    }
+
+    @Test
+    public void update_matchesFastMoverByCentreDistance() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(detections, 0.2F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        int id = out.getTrackId(0);
+        // Jumped by more than its own width, so the boxes no longer overlap.
+        detections.clear();
+        addBox(detections, 0.32F, 0.5F, 0.1F, 0.1F, 0);
+        assertEquals(0F, iou(0.2F, 0.32F, 0.1F), 0F);
+        tracker.update(detections, out);
+        assertEquals(id, out.getTrackId(0));
+    }
+
+    @Test
+    public void update_prefersNearerCandidateBeyondUnitDistance() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(detections, 0.15F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        int id = out.getTrackId(0);
+        // Both within the 1.5 gate but past distance 1, where match scores are negative.
+        detections.clear();
+        addBox(detections, 0.29F, 0.5F, 0.1F, 0.1F, 0);
+        addBox(detections, 0.26F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        assertNotEquals(id, out.getTrackId(0));
+        assertEquals(id, out.getTrackId(1));
+    }
+
+    @Test
+    public void update_dropsTracksAfterMisses() {
+        ObjectTracker tracker = new ObjectTracker(0.3F, 1.5F, 2);
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(detections, 0.5F, 0.5F, 0.1F, 0.1F, 1);
+        tracker.update(detections, out);
+        detections.clear();
+        tracker.update(detections, out);
+        tracker.predict(out);
+        // Unmatched on the last keyframe, so it is kept but not shown.
+        assertEquals(0, out.size());
+        assertEquals(1, tracker.getTrackCount());
+        tracker.update(detections, out);
+        tracker.update(detections, out);
+        assertEquals(0, tracker.getTrackCount());
+    }
+
+    @Test
+    public void update_doesNotMatchAcrossClasses() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(detections, 0.5F, 0.5F, 0.1F, 0.1F, 0);
+        tracker.update(detections, out);
+        int id = out.getTrackId(0);
+        detections.clear();
+        addBox(detections, 0.5F, 0.5F, 0.1F, 0.1F, 1);
+        tracker.update(detections, out);
+        assertNotEquals(id, out.getTrackId(0));
+    }
+
+    @Test
+    public void keyframeScheduler_triggersOnIntervalAndMotion() {
+        KeyframeScheduler scheduler = new KeyframeScheduler(4, 0.05F);
+        YuvFrame still = lumaFrame(100);
+        assertTrue(scheduler.isKeyframe(still));
+        assertFalse(scheduler.isKeyframe(still));
+        assertFalse(scheduler.isKeyframe(still));
+        assertFalse(scheduler.isKeyframe(still));
+        assertTrue(scheduler.isKeyframe(still));
+        assertFalse(scheduler.isKeyframe(still));
+        // A 20% brightness change counts as motion.
+        assertTrue(scheduler.isKeyframe(lumaFrame(150)));
+        assertEquals(3, scheduler.getKeyframeCount());
+        assertEquals(4, scheduler.getTrackedCount());
+    }
+
+    private static void addBox(DetectionBuffer buffer, float cx, float cy, float w, float h, int cls) {
+        buffer.add(cx - w / 2F, cy - h / 2F, cx + w / 2F, cy + h / 2F, cx, cy, w, h, 0.9F, cls, "c" + cls);
+    }
+
+    private static float iou(float cxA, float cxB, float size) {
+        return NonMaxSuppression.calculateIoU(cxA - size / 2F, 0F, cxA + size / 2F, size, size * size,
+                cxB - size / 2F, 0F, cxB + size / 2F, size, size * size);
+    }
+
+    private static YuvFrame lumaFrame(int value) {
+        int width = 32, height = 32;
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        for (int i = 0; i < width * height; i++) y.put(i, (byte) value);
+        ByteBuffer uv = ByteBuffer.allocateDirect(width * height / 4);
+        YuvFrame frame = new YuvFrame();
+        frame.set(y, uv, uv, width, width / 2, 1, width, height, 0);
+        return frame;
+    }
+}
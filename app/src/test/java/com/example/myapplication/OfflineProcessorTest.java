@@ -0,0 +1,155 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OfflineProcessorTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int FRAMES = 40;
+
+    private File directory;
+
+    @Before
+    public void createImages() throws IOException {
+        directory = Files.createTempDirectory("frames").toFile();
+        for (int i = 0; i < FRAMES; i++) {
+            // A white 8x8 square that moves one pixel right per frame.
+            writePpm(new File(directory, String.format("frame_%03d.ppm", i)), i % (WIDTH - 8), 20);
+        }
+    }
+
+    @After
+    public void deleteImages() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void imageFolderDecoder_readsPpmInNameOrder() throws IOException {
+        ImageFolderDecoder decoder = new ImageFolderDecoder(directory, 1000);
+        DecodedFrame frame = new DecodedFrame();
+        assertEquals(FRAMES, decoder.getFrameCount());
+        assertTrue(decoder.next(frame));
+        assertTrue(decoder.next(frame));
+        assertEquals(1, frame.getIndex());
+        assertEquals(1000, frame.getTimestampUs());
+        assertEquals(WIDTH, frame.getWidth());
+        assertEquals(HEIGHT, frame.getHeight());
+        assertEquals(0xFFFFFFFF, frame.getPixels()[20 * WIDTH + 1]);
+        assertEquals(0xFF000000, frame.getPixels()[20 * WIDTH]);
+        decoder.close();
+    }
+
+    @Test
+    public void run_streamsResultsInFrameOrder() throws Exception {
+        List<Detector> detectors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            detectors.add(new SquareDetector());
+        }
+        DetectorPool pool = new DetectorPool(detectors);
+        List<Long> frames = new ArrayList<>();
+        List<Float> lefts = new ArrayList<>();
+        DetectionSink sink = new DetectionSink() {
+            @Override
+            public void write(long frameIndex, long timestampUs, DetectionBuffer detections) {
+                frames.add(frameIndex);
+                lefts.add(detections.getX1(0));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        OfflineProcessor processor = new OfflineProcessor(pool, new ImageFolderDecoder(directory), sink);
+        assertEquals(FRAMES, processor.run());
+        pool.close();
+        for (int i = 0; i < FRAMES; i++) {
+            assertEquals(i, (long) frames.get(i));
+            // Frames were decoded into recycled buffers, so this also checks none was overwritten early.
+            assertEquals((float) (i % (WIDTH - 8)) / WIDTH, lefts.get(i), 1e-6F);
+        }
+        assertEquals(FRAMES, processor.getDetectionCount());
+        assertTrue(processor.getFramesPerSecond() > 0F);
+    }
+
+    @Test
+    public void csvSink_writesOneLinePerDetection() throws IOException {
+        StringWriter writer = new StringWriter();
+        CsvDetectionSink sink = new CsvDetectionSink(writer);
+        DetectionBuffer detections = new DetectionBuffer();
+        detections.add(0.1F, 0.2F, 0.30006F, 0.4F, 0.2F, 0.3F, 0.2F, 0.2F, 0.875F, 3, "c3");
+        detections.add(0F, 0F, 1F, 1F, 0.5F, 0.5F, 1F, 1F, 0.5F, 0, "c0");
+        sink.writeHeader();
+        sink.write(7, 233331, detections);
+        sink.close();
+        assertEquals("frame,timestamp_us,class,confidence,x1,y1,x2,y2\n"
+                + "7,233331,3,0.8750,0.1000,0.2000,0.3001,0.4000\n"
+                + "7,233331,0,0.5000,0.0000,0.0000,1.0000,1.0000\n", writer.toString());
+    }
+
+    private static void writePpm(File file, int squareX, int squareY) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(("P6\n# synthetic\n" + WIDTH + " " + HEIGHT + "\n255\n").getBytes("US-ASCII"));
+            byte[] pixels = new byte[WIDTH * HEIGHT * 3];
+            for (int y = squareY; y < squareY + 8; y++) {
+                for (int x = squareX; x < squareX + 8; x++) {
+                    int i = (y * WIDTH + x) * 3;
+                    pixels[i] = pixels[i + 1] = pixels[i + 2] = (byte) 255;
+                }
+            }
+            out.write(pixels);
+        }
+    }
+
+    // Reports the bounding box of the white pixels, after a short delay to stand in for the model.
+    static class SquareDetector extends Detector {
+        SquareDetector() {
+            super(null, "model.tflite", "labels.txt", null);
+        }
+
+        @Override
+        public int detect(int[] pixels, int width, int height, float left, float top, float right, float bottom,
+                          DetectionBuffer out) {
+            out.clear();
+            int minX = width, minY = height, maxX = -1, maxY = -1;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (pixels[y * width + x] == 0xFFFFFFFF) {
+                        minX = Math.min(minX, x);
+                        minY = Math.min(minY, y);
+                        maxX = Math.max(maxX, x);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (maxX < 0) return 0;
+            float x1 = (float) minX / width, y1 = (float) minY / height;
+            float x2 = (float) (maxX + 1) / width, y2 = (float) (maxY + 1) / height;
+            out.add(x1, y1, x2, y2, (x1 + x2) / 2F, (y1 + y2) / 2F, x2 - x1, y2 - y1, 0.9F, 0, "square");
+            return out.size();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OverlayLayoutTest {
+    private static final float PADDING = 8F;
+
+    @Test
+    public void build_placesBoxesAndLabelsInScreenSpace() {
+        LabelMetrics metrics = metrics();
+        DetectionBuffer detections = new DetectionBuffer();
+        add(detections, 0.1F, 0.2F, 0.5F, 0.6F, 1, "car");
+        OverlayLayout layout = new OverlayLayout();
+        layout.build(detections, 1000, 500, metrics, PADDING);
+
+        assertEquals(1, layout.size());
+        assertArrayEquals(new float[]{100F, 100F, 500F, 300F}, slice(layout.getBoxes(), 0, 4), 1e-3F);
+        // Car is 60 x 20: background padded by 8, baseline at the text height.
+        assertArrayEquals(new float[]{100F, 100F, 168F, 128F, 100F, 120F}, slice(layout.getLabels(), 0, 6), 1e-3F);
+        assertEquals(1, layout.getClassId(0));
+        assertEquals("car", layout.getName(0));
+        assertEquals(1000, layout.getWidth());
+        assertEquals(500, layout.getHeight());
+    }
+
+    @Test
+    public void sameAs_neverMatchesAcrossViewSizes() {
+        // Empty layouts have no coordinates to differ in, but a resize still needs a redraw.
+        OverlayLayout a = new OverlayLayout();
+        OverlayLayout b = new OverlayLayout();
+        a.build(new DetectionBuffer(), 640, 480, metrics(), PADDING);
+        b.build(new DetectionBuffer(), 480, 640, metrics(), PADDING);
+        assertFalse(a.sameAs(b));
+        b.build(new DetectionBuffer(), 640, 480, metrics(), PADDING);
+        assertTrue(a.sameAs(b));
+    }
+
+    @Test
+    public void sameAs_detectsAnyVisibleChange() {
+        LabelMetrics metrics = metrics();
+        DetectionBuffer detections = new DetectionBuffer();
+        add(detections, 0.1F, 0.1F, 0.3F, 0.3F, 0, "person");
+        add(detections, 0.5F, 0.5F, 0.7F, 0.9F, 1, "car");
+        OverlayLayout a = new OverlayLayout();
+        OverlayLayout b = new OverlayLayout();
+        a.build(detections, 640, 480, metrics, PADDING);
+        b.build(detections, 640, 480, metrics, PADDING);
+        assertTrue(a.sameAs(b));
+
+        b.build(detections, 480, 640, metrics, PADDING);
+        assertFalse(a.sameAs(b));
+
+        DetectionBuffer moved = new DetectionBuffer();
+        moved.copyFrom(detections);
+        moved.transform(1F, 1F, 0.01F, 0F);
+        b.build(moved, 640, 480, metrics, PADDING);
+        assertFalse(a.sameAs(b));
+
+        b.build(new DetectionBuffer(), 640, 480, metrics, PADDING);
+        assertFalse(a.sameAs(b));
+        a.build(new DetectionBuffer(), 640, 480, metrics, PADDING);
+        assertTrue(a.sameAs(b));
+    }
+
+    @Test
+    public void build_tracesEachBoxAsFourClosedLines() {
+        DetectionBuffer detections = new DetectionBuffer();
+        add(detections, 0.1F, 0.2F, 0.5F, 0.6F, 1, "car");
+        OverlayLayout layout = new OverlayLayout();
+        layout.build(detections, 1000, 500, metrics(), PADDING);
+        assertArrayEquals(new float[]{
+                100F, 100F, 500F, 100F,
+                500F, 100F, 500F, 300F,
+                500F, 300F, 100F, 300F,
+                100F, 300F, 100F, 100F}, slice(layout.getLines(), 0, 16), 1e-3F);
+    }
+
+    @Test
+    public void copyFrom_isIndependentOfTheSource() {
+        LabelMetrics metrics = metrics();
+        DetectionBuffer detections = new DetectionBuffer();
+        add(detections, 0.1F, 0.1F, 0.3F, 0.3F, 0, "person");
+        add(detections, 0.5F, 0.5F, 0.7F, 0.9F, 1, "car");
+        OverlayLayout source = new OverlayLayout();
+        source.build(detections, 640, 480, metrics, PADDING);
+        OverlayLayout copy = new OverlayLayout();
+        copy.copyFrom(source);
+        assertTrue(copy.sameAs(source));
+        assertArrayEquals(slice(source.getLines(), 0, 32), slice(copy.getLines(), 0, 32), 0F);
+        assertEquals(source.getWidth(), copy.getWidth());
+
+        OverlayLayout snapshot = new OverlayLayout();
+        snapshot.copyFrom(source);
+        source.build(new DetectionBuffer(), 640, 480, metrics, PADDING);
+        assertTrue(copy.sameAs(snapshot));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    public void labelMetrics_growsForUnknownClassIds() {
+        LabelMetrics metrics = metrics();
+        // Without a paint an unmeasured label has no extent, but still gets a slot.
+        assertEquals(0F, metrics.getWidth(40, "class40"), 0F);
+        metrics.put(40, "class40", 70F, 21F);
+        assertEquals(70F, metrics.getWidth(40, "class40"), 0F);
+        assertEquals(60F, metrics.getWidth(1, "car"), 0F);
+    }
+
+    private static LabelMetrics metrics() {
+        LabelMetrics metrics = new LabelMetrics(null);
+        metrics.put(0, "person", 90F, 30F);
+        metrics.put(1, "car", 60F, 20F);
+        return metrics;
+    }
+
+    private static void add(DetectionBuffer buffer, float x1, float y1, float x2, float y2, int cls, String name) {
+        buffer.add(x1, y1, x2, y2, (x1 + x2) / 2F, (y1 + y2) / 2F, x2 - x1, y2 - y1, 0.9F, cls, name);
+    }
+
+    private static float[] slice(float[] array, int from, int length) {
+        float[] slice = new float[length];
+        System.arraycopy(array, from, slice, 0, length);
+        return slice;
+    }
+}
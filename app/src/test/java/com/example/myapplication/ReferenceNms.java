@@ -0,0 +1,68 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+// The original list-based Detector.applyNMS, kept as the parity and benchmark baseline.
+class ReferenceNms {
+    static List<BoundingBox> applyNMS(List<BoundingBox> boxes, float iouThreshold) {
+        List<BoundingBox> sortedBoxes = new ArrayList<>(boxes);
+        sortedBoxes.sort((box1, box2) -> Float.compare(box2.getCnf(), box1.getCnf()));
+        List<BoundingBox> selectedBoxes = new ArrayList<>();
+        while (!sortedBoxes.isEmpty()) {
+            BoundingBox first = sortedBoxes.get(0);
+            selectedBoxes.add(first);
+            sortedBoxes.remove(first);
+            Iterator<BoundingBox> iterator = sortedBoxes.iterator();
+            while (iterator.hasNext()) {
+                BoundingBox nextBox = iterator.next();
+                float iou = calculateIoU(first, nextBox);
+                if (iou >= iouThreshold) {
+                    iterator.remove();
+                }
+            }
+        }
+        return selectedBoxes;
+    }
+
+    static float calculateIoU(BoundingBox box1, BoundingBox box2) {
+        float x1 = max(box1.getX1(), box2.getX1());
+        float y1 = max(box1.getY1(), box2.getY1());
+        float x2 = min(box1.getX2(), box2.getX2());
+        float y2 = min(box1.getY2(), box2.getY2());
+        float intersectionArea = max(0F, x2 - x1) * max(0F, y2 - y1);
+        float box1Area = box1.getW() * box1.getH();
+        float box2Area = box2.getW() * box2.getH();
+        return intersectionArea / (box1Area + box2Area - intersectionArea);
+    }
+
+    // Candidates clustered around a few object centres, like a crowded scene after decoding.
+    static List<BoundingBox> crowdedScene(Random random, int count, int numClasses, float maxSize) {
+        int objects = max(1, count / 20);
+        float[] centres = new float[objects * 2];
+        for (int i = 0; i < centres.length; i++) {
+            centres[i] = 0.05F + random.nextFloat() * 0.9F;
+        }
+        List<BoundingBox> boxes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int object = random.nextInt(objects);
+            float w = 0.01F + random.nextFloat() * maxSize;
+            float h = 0.01F + random.nextFloat() * maxSize;
+            float cx = clamp(centres[object * 2] + (random.nextFloat() - 0.5F) * w * 0.5F, w / 2F, 1F - w / 2F);
+            float cy = clamp(centres[object * 2 + 1] + (random.nextFloat() - 0.5F) * h * 0.5F, h / 2F, 1F - h / 2F);
+            float cnf = 0.75F + random.nextInt(1000) / 4000F;
+            int cls = random.nextInt(numClasses);
+            boxes.add(new BoundingBox(cx - w / 2F, cy - h / 2F, cx + w / 2F, cy + h / 2F, cx, cy, w, h, cnf, cls, "class" + cls));
+        }
+        return boxes;
+    }
+
+    private static float clamp(float value, float low, float high) {
+        return max(low, min(high, value));
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ReplayFrameSourceTest {
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 4;
+    private static final int FRAMES = 6;
+
+    private File file;
+
+    @Before
+    public void writeRecording() throws IOException {
+        // Frame i has luma i, chroma U 100 + i and V 200 + i.
+        int lumaBytes = WIDTH * HEIGHT;
+        byte[] bytes = new byte[FRAMES * lumaBytes * 3 / 2];
+        for (int frame = 0; frame < FRAMES; frame++) {
+            int offset = frame * lumaBytes * 3 / 2;
+            for (int i = 0; i < lumaBytes; i++) {
+                bytes[offset + i] = (byte) frame;
+            }
+            for (int i = 0; i < lumaBytes / 4; i++) {
+                bytes[offset + lumaBytes + i] = (byte) (100 + frame);
+                bytes[offset + lumaBytes + lumaBytes / 4 + i] = (byte) (200 + frame);
+            }
+        }
+        file = File.createTempFile("replay", ".yuv");
+        Files.write(file.toPath(), bytes);
+    }
+
+    @After
+    public void deleteRecording() {
+        file.delete();
+    }
+
+    @Test
+    public void asFastAsPossible_deliversEveryFrameInOrder() throws Exception {
+        ReplayFrameSource source = new ReplayFrameSource(new RawYuvReader(file, WIDTH, HEIGHT), 0F);
+        Collector collector = new Collector(2);
+        source.start(collector);
+        assertTrue(collector.ended.await(5, TimeUnit.SECONDS));
+        source.join();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < FRAMES; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, collector.luma);
+        assertEquals(1, collector.maxOutstanding);
+        assertEquals(FRAMES, source.getEmittedCount());
+        assertNull(source.getError());
+    }
+
+    @Test
+    public void rawYuvReader_pointsPlanesIntoTheFrame() throws IOException {
+        RawYuvReader reader = new RawYuvReader(file, WIDTH, HEIGHT);
+        assertEquals(FRAMES, reader.getFrameCount());
+        ReplayFrame frame = new ReplayFrame(new ReplayFrameSource(reader, 0F));
+        assertTrue(reader.next(frame));
+        assertTrue(reader.next(frame));
+        YuvFrame yuv = frame.getYuvFrame();
+        assertTrue(frame.isYuv());
+        assertEquals(1, frame.getIndex());
+        assertEquals(WIDTH, yuv.getYRowStride());
+        assertEquals(WIDTH / 2, yuv.getUvRowStride());
+        assertEquals(1, yuv.getUvPixelStride());
+        assertEquals(WIDTH * HEIGHT / 4, yuv.getUPlane().remaining());
+        assertEquals(1, yuv.getYPlane().get(WIDTH * HEIGHT - 1));
+        assertEquals(101, yuv.getUPlane().get(0));
+        assertEquals(201, yuv.getVPlane().get(WIDTH * HEIGHT / 4 - 1) & 0xFF);
+        reader.close();
+    }
+
+    @Test
+    public void fixedRate_spacesFramesAndDropsNothingWhenConsumerKeepsUp() throws Exception {
+        ReplayFrameSource source = new ReplayFrameSource(new RawYuvReader(file, WIDTH, HEIGHT), 100F);
+        Collector collector = new Collector(0);
+        long start = System.nanoTime();
+        source.start(collector);
+        assertTrue(collector.ended.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Six frames at 10 ms intervals: the last is due 50 ms after the first.
+        assertTrue("elapsed " + elapsedMillis, elapsedMillis >= 50);
+        assertEquals(FRAMES, collector.luma.size());
+        assertTrue(source.getFramesPerSecond() <= 125F);
+    }
+
+    @Test
+    public void asFastAsPossible_feedsEveryFrameToThePipelineDespiteTheGovernor() throws Exception {
+        // A governor already skipping two frames in three, as after slow inferences.
+        InferenceGovernor governor = new InferenceGovernor(10F, 1, 1, 1, 3);
+        for (int i = 0; i < 15; i++) {
+            governor.onFrame(30);
+        }
+        assertEquals(3, governor.getStride());
+
+        ReplayFrameSource lossless = new ReplayFrameSource(new RawYuvReader(file, WIDTH, HEIGHT), 0F);
+        assertTrue(lossless.isLossless());
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < FRAMES; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, replayThroughPipeline(lossless, governor));
+        assertEquals(0, governor.getSkippedFrames());
+
+        // The same source treated as live goes through the stride.
+        ReplayFrameSource live = new ReplayFrameSource(new RawYuvReader(file, WIDTH, HEIGHT), 0F);
+        assertEquals(2, replayThroughPipeline(live, governor, false).size());
+        assertFalse(new ReplayFrameSource(new RawYuvReader(file, WIDTH, HEIGHT), 30F).isLossless());
+    }
+
+    private static List<Integer> replayThroughPipeline(ReplayFrameSource source, InferenceGovernor governor)
+            throws Exception {
+        return replayThroughPipeline(source, governor, source.isLossless());
+    }
+
+    // Returns the luma of each frame that reached postprocess, in order.
+    private static List<Integer> replayThroughPipeline(ReplayFrameSource source, InferenceGovernor governor,
+                                                       boolean lossless) throws Exception {
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        DetectionPipeline<SourceFrame, int[]> pipeline = new DetectionPipeline<>("replay",
+                new DetectionPipeline.Stages<SourceFrame, int[]>() {
+                    @Override
+                    public int[] createSlot() {
+                        return new int[1];
+                    }
+
+                    @Override
+                    public void preprocess(SourceFrame frame, int[] slot) {
+                        slot[0] = ((ReplayFrame) frame).getYuvFrame().getYPlane().get(0);
+                    }
+
+                    @Override
+                    public void infer(int[] slot) {
+                    }
+
+                    @Override
+                    public void postprocess(int[] slot) {
+                        processed.add(slot[0]);
+                    }
+                }, SourceFrame::release);
+        pipeline.start();
+        CountDownLatch ended = new CountDownLatch(1);
+        source.start(new PipelineFeeder(pipeline, governor, lossless, ended::countDown));
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getProcessedCount() < pipeline.getSubmittedCount() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        pipeline.stop();
+        pipeline.join();
+        assertEquals(0, pipeline.getDroppedCount());
+        return new ArrayList<>(processed);
+    }
+
+    // Releases each frame on another thread after holdMillis, like the detection pipeline does.
+    private static class Collector implements FrameSource.Listener {
+        private final List<Integer> luma = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch ended = new CountDownLatch(1);
+        private final long holdMillis;
+        private int outstanding;
+        private int maxOutstanding;
+
+        Collector(long holdMillis) {
+            this.holdMillis = holdMillis;
+        }
+
+        @Override
+        public void onFrame(SourceFrame frame) {
+            ReplayFrame replayed = (ReplayFrame) frame;
+            luma.add((int) replayed.getYuvFrame().getYPlane().get(0));
+            synchronized (this) {
+                outstanding++;
+                maxOutstanding = Math.max(maxOutstanding, outstanding);
+            }
+            new Thread(() -> {
+                try {
+                    Thread.sleep(holdMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (this) {
+                    outstanding--;
+                }
+                frame.release();
+            }).start();
+        }
+
+        @Override
+        public void onEnd() {
+            ended.countDown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResultSmootherTest {
+    @Test
+    public void update_reducesJitterOfStillBox() {
+        ResultSmoother smoother = new ResultSmoother();
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        Random random = new Random(7);
+        double rawError = 0, smoothedError = 0;
+        for (int frame = 0; frame < 200; frame++) {
+            float noise = (random.nextFloat() - 0.5F) * 0.02F;
+            results.clear();
+            addBox(results, 0.5F + noise, 0.5F, 0.2F, 0.2F, 0, BoundingBox.NO_TRACK);
+            smoother.update(results, frame * 33L, out);
+            assertEquals(1, out.size());
+            if (frame >= 20) {
+                rawError += noise * noise;
+                smoothedError += Math.pow(out.getCx(0) - 0.5F, 2);
+            }
+        }
+        assertTrue("raw " + rawError + " smoothed " + smoothedError, smoothedError * 4 < rawError);
+    }
+
+    @Test
+    public void update_followsMovingBoxWithLittleLag() {
+        ResultSmoother smoother = new ResultSmoother();
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        float cx = 0.1F;
+        for (int frame = 0; frame < 30; frame++) {
+            cx = 0.1F + frame * 0.02F;
+            results.clear();
+            addBox(results, cx, 0.5F, 0.2F, 0.2F, 0, BoundingBox.NO_TRACK);
+            smoother.update(results, frame * 33L, out);
+        }
+        // 0.6 widths per second; the filter should trail by less than one frame's movement.
+        assertEquals(cx, out.getCx(0), 0.02F);
+    }
+
+    @Test
+    public void update_keepsPersistentIds() {
+        ResultSmoother smoother = new ResultSmoother();
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(results, 0.2F, 0.5F, 0.1F, 0.1F, 0, BoundingBox.NO_TRACK);
+        addBox(results, 0.7F, 0.5F, 0.1F, 0.1F, 1, BoundingBox.NO_TRACK);
+        smoother.update(results, 0, out);
+        int first = idNear(out, 0.2F), second = idNear(out, 0.7F);
+        assertNotEquals(first, second);
+
+        results.clear();
+        addBox(results, 0.71F, 0.5F, 0.1F, 0.1F, 1, BoundingBox.NO_TRACK);
+        addBox(results, 0.21F, 0.5F, 0.1F, 0.1F, 0, BoundingBox.NO_TRACK);
+        smoother.update(results, 33, out);
+        assertEquals(2, out.size());
+        assertEquals(first, idNear(out, 0.2F));
+        assertEquals(second, idNear(out, 0.7F));
+    }
+
+    @Test
+    public void update_matchesByTrackIdAcrossJumps() {
+        ResultSmoother smoother = new ResultSmoother();
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(results, 0.2F, 0.5F, 0.1F, 0.1F, 0, 42);
+        smoother.update(results, 0, out);
+        int id = out.getTrackId(0);
+        results.clear();
+        addBox(results, 0.6F, 0.5F, 0.1F, 0.1F, 0, 42);
+        smoother.update(results, 33, out);
+        assertEquals(1, out.size());
+        assertEquals(id, out.getTrackId(0));
+    }
+
+    @Test
+    public void update_holdsMissingBoxBriefly() {
+        ResultSmoother smoother = new ResultSmoother(0.3F, 2, 1.5F, 4F);
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer empty = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        addBox(results, 0.5F, 0.5F, 0.1F, 0.1F, 0, BoundingBox.NO_TRACK);
+        smoother.update(results, 0, out);
+        int id = out.getTrackId(0);
+        smoother.update(empty, 33, out);
+        assertEquals(1, out.size());
+        smoother.update(results, 66, out);
+        assertEquals(id, out.getTrackId(0));
+        smoother.update(empty, 99, out);
+        smoother.update(empty, 132, out);
+        assertEquals(1, out.size());
+        smoother.update(empty, 165, out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void update_handlesManyBoxes() {
+        ResultSmoother smoother = new ResultSmoother();
+        DetectionBuffer results = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        for (int frame = 0; frame < 3; frame++) {
+            results.clear();
+            for (int i = 0; i < 400; i++) {
+                float cx = 0.025F + (i % 20) * 0.05F, cy = 0.025F + (i / 20) * 0.05F;
+                addBox(results, cx + frame * 0.002F, cy, 0.04F, 0.04F, 0, BoundingBox.NO_TRACK);
+            }
+            smoother.update(results, frame * 33L, out);
+        }
+        assertEquals(400, out.size());
+        for (int i = 0; i < out.size(); i++) {
+            assertTrue(out.getTrackId(i) < 400);
+        }
+    }
+
+    private static int idNear(DetectionBuffer out, float cx) {
+        for (int i = 0; i < out.size(); i++) {
+            if (Math.abs(out.getCx(i) - cx) < 0.05F) return out.getTrackId(i);
+        }
+        fail("no box near " + cx);
+        return -1;
+    }
+
+    private static void addBox(DetectionBuffer buffer, float cx, float cy, float w, float h, int cls, int trackId) {
+        int i = buffer.add(cx - w / 2F, cy - h / 2F, cx + w / 2F, cy + h / 2F, cx, cy, w, h, 0.9F, cls, "c" + cls);
+        buffer.setTrackId(i, trackId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class RoiSelectorTest {
+    @Test
+    public void select_zoomUsesCentredCrop() {
+        RoiSelector selector = new RoiSelector();
+        TensorSlot slot = createSlot();
+        selector.setMode(RoiSelector.Mode.ZOOM);
+        selector.setZoom(2F);
+        selector.select(slot);
+        assertEquals(0.25F, slot.getRoiLeft(), 1e-6F);
+        assertEquals(0.25F, slot.getRoiTop(), 1e-6F);
+        assertEquals(0.75F, slot.getRoiRight(), 1e-6F);
+        assertEquals(0.75F, slot.getRoiBottom(), 1e-6F);
+        assertFalse(slot.isFullFrame());
+
+        // Capped at the maximum zoom.
+        selector.setZoom(100F);
+        selector.select(slot);
+        assertEquals(0.25F, slot.getRoiRight() - slot.getRoiLeft(), 1e-6F);
+    }
+
+    @Test
+    public void select_autoCropsAroundResults() {
+        RoiSelector selector = new RoiSelector(10, 4F);
+        TensorSlot slot = createSlot();
+        selector.setMode(RoiSelector.Mode.AUTO);
+        selector.select(slot);
+        assertTrue(slot.isFullFrame());
+
+        DetectionBuffer results = new DetectionBuffer();
+        addBox(results, 0.9F, 0.9F, 0.1F, 0.1F);
+        selector.onResults(results);
+        selector.select(slot);
+        // Minimum crop of 1 / maxZoom, shifted to stay inside the frame.
+        assertEquals(0.75F, slot.getRoiLeft(), 1e-6F);
+        assertEquals(0.75F, slot.getRoiTop(), 1e-6F);
+        assertEquals(1F, slot.getRoiRight(), 1e-6F);
+        assertEquals(1F, slot.getRoiBottom(), 1e-6F);
+
+        // Nothing found in the crop, so the next frame goes back to the full frame.
+        results.clear();
+        selector.onResults(results);
+        selector.select(slot);
+        assertTrue(slot.isFullFrame());
+    }
+
+    @Test
+    public void select_autoRunsPeriodicFullFrame() {
+        RoiSelector selector = new RoiSelector(4, 4F);
+        TensorSlot slot = createSlot();
+        selector.setMode(RoiSelector.Mode.AUTO);
+        DetectionBuffer results = new DetectionBuffer();
+        addBox(results, 0.5F, 0.5F, 0.1F, 0.1F);
+        selector.onResults(results);
+        int fullFrames = 0;
+        for (int frame = 0; frame < 12; frame++) {
+            selector.select(slot);
+            if (slot.isFullFrame()) fullFrames++;
+            selector.onResults(results);
+        }
+        assertEquals(3, fullFrames);
+        assertEquals(3, selector.getFullFrames());
+        assertEquals(9, selector.getRoiFrames());
+    }
+
+    @Test
+    public void transform_mapsCropBoxesToFullFrame() {
+        DetectionBuffer boxes = new DetectionBuffer();
+        addBox(boxes, 0.5F, 0.5F, 0.2F, 0.4F);
+        // The crop covers [0.25, 0.75] horizontally and [0.5, 1] vertically.
+        boxes.transform(0.5F, 0.5F, 0.25F, 0.5F);
+        assertEquals(0.45F, boxes.getX1(0), 1e-6F);
+        assertEquals(0.55F, boxes.getX2(0), 1e-6F);
+        assertEquals(0.65F, boxes.getY1(0), 1e-6F);
+        assertEquals(0.85F, boxes.getY2(0), 1e-6F);
+        assertEquals(0.5F, boxes.getCx(0), 1e-6F);
+        assertEquals(0.75F, boxes.getCy(0), 1e-6F);
+        assertEquals(0.1F, boxes.getW(0), 1e-6F);
+        assertEquals(0.2F, boxes.getH(0), 1e-6F);
+    }
+
+    @Test
+    public void writeArgb_cropSamplesOnlyRegion() {
+        int width = 8, height = 8;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = 0xFF000000 | (x * 16) << 16 | (y * 16) << 8;
+            }
+        }
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 2, 0F, 1F);
+        preprocessor.writeArgb(pixels, width, height, 0.5F, 0.5F, 1F, 1F);
+        FloatBuffer floats = preprocessor.getInputBuffer().asFloatBuffer();
+        // Tensor pixel (0, 0) samples source (5, 5), the centre of the crop's first quarter.
+        assertEquals(80F, floats.get(0), 0F);
+        assertEquals(80F, floats.get(1), 0F);
+        // Tensor pixel (1, 1) samples source (7, 7).
+        assertEquals(112F, floats.get(9), 0F);
+        assertEquals(112F, floats.get(10), 0F);
+    }
+
+    private static TensorSlot createSlot() {
+        return new TensorSlot(new TensorPreprocessor(4, 4, 0F, 255F), 4);
+    }
+
+    private static void addBox(DetectionBuffer buffer, float cx, float cy, float w, float h) {
+        buffer.add(cx - w / 2F, cy - h / 2F, cx + w / 2F, cy + h / 2F, cx, cy, w, h, 0.9F, 0, "c0");
+    }
+}
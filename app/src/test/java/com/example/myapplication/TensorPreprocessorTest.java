@@ -0,0 +1,160 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.support.common.ops.NormalizeOp;
+import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TensorPreprocessorTest {
+    private static final float INPUT_MEAN = 0f;
+    private static final float INPUT_STANDARD_DEVIATION = 255f;
+
+    @Test
+    public void writeArgb_matchesNormalizeOpPath() {
+        Random random = new Random(1);
+        int[][] sizes = {{64, 48}, {32, 32}, {17, 93}};
+        TensorPreprocessor preprocessor = new TensorPreprocessor(32, 24, INPUT_MEAN, INPUT_STANDARD_DEVIATION);
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = random.nextInt();
+            }
+            preprocessor.writeArgb(pixels, width, height);
+            float[] actual = readFloats(preprocessor.getInputBuffer());
+            float[] expected = referencePath(pixels, width, height, 32, 24);
+            assertArrayEquals(expected, actual, 0F);
+        }
+    }
+
+    @Test
+    public void writeArgb_identitySizeCopiesEveryPixel() {
+        int[] pixels = {0xFF010203, 0xFF040506, 0xFF070809, 0xFFFF0000};
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 2, 0f, 1f);
+        preprocessor.writeArgb(pixels, 2, 2);
+        float[] actual = readFloats(preprocessor.getInputBuffer());
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 255, 0, 0}, actual, 0F);
+    }
+
+    @Test
+    public void writeArgb_quantizesForIntegerInputs() {
+        int[] pixels = {0xFF000080, 0xFFFF01FE};
+        TensorPreprocessor uint8 = new TensorPreprocessor(2, 1, INPUT_MEAN, INPUT_STANDARD_DEVIATION,
+                DataType.UINT8, 1F / 255F, 0);
+        uint8.writeArgb(pixels, 2, 1);
+        assertArrayEquals(new byte[]{0, 0, (byte) 128, (byte) 255, 1, (byte) 254}, readBytes(uint8.getInputBuffer()));
+
+        TensorPreprocessor int8 = new TensorPreprocessor(2, 1, INPUT_MEAN, INPUT_STANDARD_DEVIATION,
+                DataType.INT8, 1F / 255F, -128);
+        int8.writeArgb(pixels, 2, 1);
+        assertArrayEquals(new byte[]{-128, -128, 0, 127, -127, 126}, readBytes(int8.getInputBuffer()));
+        assertEquals(6, int8.getInputBuffer().capacity());
+    }
+
+    @Test
+    public void writeArgb_feedsRawPixelsWithoutQuantizationParams() {
+        int[] pixels = {0xFF000080, 0xFFFF01FE};
+        TensorPreprocessor uint8 = new TensorPreprocessor(2, 1, INPUT_MEAN, INPUT_STANDARD_DEVIATION,
+                DataType.UINT8, 0F, 0);
+        uint8.writeArgb(pixels, 2, 1);
+        assertArrayEquals(new byte[]{0, 0, (byte) 128, (byte) 255, 1, (byte) 254}, readBytes(uint8.getInputBuffer()));
+
+        TensorPreprocessor int8 = new TensorPreprocessor(2, 1, INPUT_MEAN, INPUT_STANDARD_DEVIATION,
+                DataType.INT8, 0F, 0);
+        int8.writeArgb(pixels, 2, 1);
+        assertArrayEquals(new byte[]{-128, -128, 0, 127, -127, 126}, readBytes(int8.getInputBuffer()));
+    }
+
+    @Test
+    public void writeArgb_fillsOnlyItsSliceOfBatchBuffer() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(2 * 2 * 2 * 3);
+        ByteBuffer second = batch.duplicate();
+        second.position(12);
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 2, 0f, 1f, DataType.UINT8, 1f, 0, second.slice());
+        int[] pixels = {0xFF010203, 0xFF040506, 0xFF070809, 0xFF0A0B0C};
+        preprocessor.writeArgb(pixels, 2, 2);
+        byte[] values = readBytes(batch);
+        for (int i = 0; i < 12; i++) {
+            assertEquals(0, values[i]);
+        }
+        for (int i = 12; i < 24; i++) {
+            assertEquals(i - 11, values[i]);
+        }
+    }
+
+    @Test
+    public void sampleIndex_picksPixelCentres() {
+        assertEquals(1, TensorPreprocessor.sampleIndex(0, 4, 2));
+        assertEquals(3, TensorPreprocessor.sampleIndex(1, 4, 2));
+        assertEquals(1, TensorPreprocessor.sampleIndex(0, 3, 1));
+        assertEquals(0, TensorPreprocessor.sampleIndex(1, 2, 4));
+        assertEquals(1, TensorPreprocessor.sampleIndex(2, 2, 4));
+    }
+
+    @Test
+    public void writeArgb_resizesOddSizesByPixelCentre() {
+        // Blue holds the source column; expected columns worked out by hand from pixel centres.
+        assertArrayEquals(new float[]{0, 2, 4}, blueRow(5, 3), 0F);
+        assertArrayEquals(new float[]{1, 3, 5}, blueRow(7, 3), 0F);
+        assertArrayEquals(new float[]{0, 0, 1, 2, 2}, blueRow(3, 5), 0F);
+        assertArrayEquals(new float[]{0, 2, 3, 4, 6}, blueRow(7, 5), 0F);
+    }
+
+    private static float[] blueRow(int width, int tensorWidth) {
+        int[] pixels = new int[width];
+        for (int x = 0; x < width; x++) {
+            pixels[x] = 0xFF000000 | x;
+        }
+        TensorPreprocessor preprocessor = new TensorPreprocessor(tensorWidth, 1, 0f, 1f);
+        preprocessor.writeArgb(pixels, width, 1);
+        float[] rgb = readFloats(preprocessor.getInputBuffer());
+        float[] blue = new float[tensorWidth];
+        for (int x = 0; x < tensorWidth; x++) {
+            blue[x] = rgb[x * 3 + 2];
+        }
+        return blue;
+    }
+
+    // Nearest-neighbour resize sampling at destination pixel centres, which is how
+    // Bitmap.createScaledBitmap samples with filtering off, then unpack to RGB floats as
+    // TensorImage does and the NormalizeOp that Detector's ImageProcessor used to apply. The
+    // sampling is computed here independently of TensorPreprocessor; whether Skia rounds
+    // exactly the same way on every device is not something a JVM test can check.
+    private static float[] referencePath(int[] pixels, int width, int height, int tensorWidth, int tensorHeight) {
+        float[] rgb = new float[tensorWidth * tensorHeight * 3];
+        int i = 0;
+        for (int y = 0; y < tensorHeight; y++) {
+            int sy = (int) Math.floor((y + 0.5) * height / tensorHeight);
+            for (int x = 0; x < tensorWidth; x++) {
+                int sx = (int) Math.floor((x + 0.5) * width / tensorWidth);
+                int pixel = pixels[sy * width + sx];
+                rgb[i++] = (pixel >> 16) & 0xFF;
+                rgb[i++] = (pixel >> 8) & 0xFF;
+                rgb[i++] = pixel & 0xFF;
+            }
+        }
+        int[] shape = {tensorHeight, tensorWidth, 3};
+        TensorBuffer buffer = TensorBuffer.createFixedSize(shape, DataType.FLOAT32);
+        buffer.loadArray(rgb, shape);
+        return new NormalizeOp(INPUT_MEAN, INPUT_STANDARD_DEVIATION).apply(buffer).getFloatArray();
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] values = new byte[buffer.capacity()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer) {
+        float[] values = new float[buffer.capacity() / 4];
+        buffer.order(ByteOrder.nativeOrder()).asFloatBuffer().get(values);
+        return values;
+    }
+}
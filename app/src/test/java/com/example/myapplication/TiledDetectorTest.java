@@ -0,0 +1,82 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TiledDetectorTest {
+    @Test
+    public void computeTiles_coversFrameWithOverlap() {
+        float[] tiles = TiledDetector.computeTiles(1600, 1000, 640, 0.2F, false);
+        // Stride of 512 px: 3 columns and 2 rows.
+        assertEquals(6 * 4, tiles.length);
+        assertEquals(0F, tiles[0], 0F);
+        assertEquals(0F, tiles[1], 0F);
+        assertEquals(640F / 1600F, tiles[2], 1e-6F);
+        // The last tile ends on the far corner.
+        assertEquals(1F, tiles[tiles.length - 2], 1e-6F);
+        assertEquals(1F, tiles[tiles.length - 1], 1e-6F);
+        for (int i = 0; i < tiles.length; i += 4) {
+            assertEquals(640F / 1600F, tiles[i + 2] - tiles[i], 1e-6F);
+            assertEquals(640F / 1000F, tiles[i + 3] - tiles[i + 1], 1e-6F);
+        }
+        // Neighbours share at least the requested fraction of a tile.
+        assertTrue(tiles[2] - tiles[4] >= 0.2F * 640F / 1600F);
+    }
+
+    @Test
+    public void computeTiles_smallFrameIsOneTile() {
+        float[] tiles = TiledDetector.computeTiles(320, 240, 640, 0.2F, true);
+        assertArrayEquals(new float[]{0F, 0F, 1F, 1F}, tiles, 0F);
+        tiles = TiledDetector.computeTiles(1280, 640, 640, 0F, true);
+        // Full frame first, then two tiles side by side.
+        assertArrayEquals(new float[]{0F, 0F, 1F, 1F, 0F, 0F, 0.5F, 1F, 0.5F, 0F, 1F, 1F}, tiles, 1e-6F);
+    }
+
+    @Test
+    public void detect_mergesDuplicatesAcrossTiles() throws Exception {
+        // One small object in the overlap of the two tiles and one only in the right tile.
+        float[][] objects = {{0.49F, 0.4F, 0.51F, 0.45F}, {0.8F, 0.7F, 0.82F, 0.72F}};
+        List<Detector> detectors = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            detectors.add(new SceneDetector(objects));
+        }
+        DetectorPool pool = new DetectorPool(detectors);
+        TiledDetector tiled = new TiledDetector(pool);
+        tiled.setTileSize(640);
+        tiled.setOverlap(0.25F);
+        tiled.setFullFramePass(false);
+        DetectionBuffer out = new DetectionBuffer();
+        int count = tiled.detect(new int[1120 * 640], 1120, 640, out);
+        pool.close();
+        assertEquals(2, count);
+        assertEquals(2, tiled.getTileCount());
+        assertTrue(tiled.getTilesPerSecond() > 0F);
+    }
+
+    // Reports every object that lies inside the requested region, in full-frame coordinates.
+    static class SceneDetector extends Detector {
+        private final float[][] objects;
+
+        SceneDetector(float[][] objects) {
+            super(null, "model.tflite", "labels.txt", null);
+            this.objects = objects;
+        }
+
+        @Override
+        public int detect(int[] pixels, int width, int height, float left, float top, float right, float bottom,
+                          DetectionBuffer out) {
+            out.clear();
+            for (float[] o : objects) {
+                if (o[0] >= left && o[2] <= right && o[1] >= top && o[3] <= bottom) {
+                    out.add(o[0], o[1], o[2], o[3], (o[0] + o[2]) / 2F, (o[1] + o[3]) / 2F,
+                            o[2] - o[0], o[3] - o[1], 0.9F, 0, "c0");
+                }
+            }
+            return out.size();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class YoloDecoderTest {
+    private static final float THRESHOLD = 0.75F;
+
+    @Test
+    public void decode_matchesBoxedReference() {
+        Random random = new Random(42);
+        int numChannel = 4 + 6;
+        int numElements = 2000;
+        List<String> labels = labels(numChannel - 4);
+        YoloDecoder decoder = new YoloDecoder();
+        DetectionBuffer buffer = new DetectionBuffer(4);
+        for (int run = 0; run < 5; run++) {
+            float[] output = randomOutput(random, numChannel, numElements);
+            List<BoundingBox> expected = referenceDecode(output, numChannel, numElements, labels);
+            decoder.decode(output, numChannel, numElements, labels, THRESHOLD, buffer);
+            List<BoundingBox> actual = buffer.toBoundingBoxes();
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSameBox(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void decode_tiesPickFirstClass() {
+        int numChannel = 4 + 3;
+        float[] output = new float[numChannel];
+        output[0] = 0.5F;
+        output[1] = 0.5F;
+        output[2] = 0.2F;
+        output[3] = 0.2F;
+        output[4] = 0.1F;
+        output[5] = 0.9F;
+        output[6] = 0.9F;
+        DetectionBuffer buffer = new DetectionBuffer();
+        new YoloDecoder().decode(output, numChannel, 1, labels(3), THRESHOLD, buffer);
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.getCls(0));
+    }
+
+    @Test
+    public void decodeQuantized_matchesDequantizedFloatDecode() {
+        Random random = new Random(9);
+        int numChannel = 4 + 5;
+        int numElements = 3000;
+        List<String> labels = labels(numChannel - 4);
+        YoloDecoder decoder = new YoloDecoder();
+        DetectionBuffer expected = new DetectionBuffer();
+        DetectionBuffer actual = new DetectionBuffer();
+        for (boolean signed : new boolean[]{false, true}) {
+            float scale = 1F / 250F;
+            int zeroPoint = signed ? -125 : 3;
+            byte[] quantized = new byte[numChannel * numElements];
+            float[] real = new float[quantized.length];
+            for (int i = 0; i < quantized.length; i++) {
+                int q = signed ? random.nextInt(256) - 128 : random.nextInt(256);
+                quantized[i] = (byte) q;
+                real[i] = (q - zeroPoint) * scale;
+            }
+            decoder.decode(real, numChannel, numElements, labels, THRESHOLD, expected);
+            decoder.decode(quantized, numChannel, numElements, labels, THRESHOLD, scale, zeroPoint, signed, actual);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), actual.size());
+            List<BoundingBox> expectedBoxes = expected.toBoundingBoxes();
+            List<BoundingBox> actualBoxes = actual.toBoundingBoxes();
+            for (int i = 0; i < expectedBoxes.size(); i++) {
+                assertSameBox(expectedBoxes.get(i), actualBoxes.get(i));
+            }
+        }
+    }
+
+    static float[] randomOutput(Random random, int numChannel, int numElements) {
+        float[] output = new float[numChannel * numElements];
+        for (int c = 0; c < numElements; c++) {
+            output[c] = random.nextFloat();
+            output[c + numElements] = random.nextFloat();
+            output[c + numElements * 2] = random.nextFloat() * 0.3F;
+            output[c + numElements * 3] = random.nextFloat() * 0.3F;
+            for (int i = 4; i < numChannel; i++) {
+                output[c + numElements * i] = random.nextFloat() * random.nextFloat() * 1.2F;
+            }
+        }
+        return output;
+    }
+
+    static List<String> labels(int count) {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            labels.add("class" + i);
+        }
+        return labels;
+    }
+
+    static void assertSameBox(BoundingBox expected, BoundingBox actual) {
+        assertEquals(expected.getX1(), actual.getX1(), 0F);
+        assertEquals(expected.getY1(), actual.getY1(), 0F);
+        assertEquals(expected.getX2(), actual.getX2(), 0F);
+        assertEquals(expected.getY2(), actual.getY2(), 0F);
+        assertEquals(expected.getCnf(), actual.getCnf(), 0F);
+        assertEquals(expected.getCls(), actual.getCls());
+        assertEquals(expected.getClsName(), actual.getClsName());
+    }
+
+    // The original Detector.bestBox decoding loop, kept as the parity reference.
+    private static List<BoundingBox> referenceDecode(float[] array, int numChannel, int numElements, List<String> labels) {
+        List<BoundingBox> boundingBoxes = new ArrayList<>();
+        for (int c = 0; c < numElements; c++) {
+            List<Float> confidences = new ArrayList<>();
+            for (int i = 4; i < numChannel; i++) {
+                confidences.add(array[c + numElements * i]);
+            }
+            float cnf = Collections.max(confidences);
+            if (cnf > THRESHOLD) {
+                int cls = confidences.indexOf(cnf);
+                float cx = array[c];
+                float cy = array[c + numElements];
+                float w = array[c + numElements * 2];
+                float h = array[c + numElements * 3];
+                float x1 = cx - (w / 2F);
+                float y1 = cy - (h / 2F);
+                float x2 = cx + (w / 2F);
+                float y2 = cy + (h / 2F);
+                if (x1 < 0F || x1 > 1F) continue;
+                if (y1 < 0F || y1 > 1F) continue;
+                if (x2 < 0F || x2 > 1F) continue;
+                if (y2 < 0F || y2 > 1F) continue;
+                boundingBoxes.add(new BoundingBox(x1, y1, x2, y2, cx, cy, w, h, cnf, cls, labels.get(cls)));
+            }
+        }
+        return boundingBoxes;
+    }
+}
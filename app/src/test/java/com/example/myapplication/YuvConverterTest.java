@@ -0,0 +1,135 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class YuvConverterTest {
+
+    @Test
+    public void convert_grayPlanesMapToLumaInEveryChannel() {
+        int width = 4, height = 2;
+        byte[] luma = new byte[width * height];
+        for (int i = 0; i < luma.length; i++) luma[i] = (byte) (i * 30);
+        float[] tensor = convert(frame(luma, width, height, 128, 128, 0), width, height);
+        for (int i = 0; i < luma.length; i++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(luma[i] & 0xFF, tensor[i * 3 + c], 0F);
+            }
+        }
+    }
+
+    @Test
+    public void convert_chromaMatchesBt601() {
+        // Pure red in full-range BT.601.
+        float[] tensor = convert(frame(new byte[]{76, 76, 76, 76}, 2, 2, 85, 255, 0), 2, 2);
+        assertEquals(255F, tensor[0], 1F);
+        assertEquals(0F, tensor[1], 1F);
+        assertEquals(0F, tensor[2], 1F);
+    }
+
+    @Test
+    public void convert_rotationTurnsFrameUpright() {
+        // 3x2 sensor frame:   0 1 2
+        //                     3 4 5
+        int width = 3, height = 2;
+        byte[] luma = {0, 1, 2, 3, 4, 5};
+        assertLuma(new int[]{3, 0, 4, 1, 5, 2}, convert(frame(luma, width, height, 128, 128, 90), 2, 3));
+        assertLuma(new int[]{5, 4, 3, 2, 1, 0}, convert(frame(luma, width, height, 128, 128, 180), 3, 2));
+        assertLuma(new int[]{2, 5, 1, 4, 0, 3}, convert(frame(luma, width, height, 128, 128, 270), 2, 3));
+    }
+
+    @Test
+    public void convert_mirroredFrameIsFlippedAfterRotation() {
+        // 3x2 sensor frame:   0 1 2
+        //                     3 4 5
+        int width = 3, height = 2;
+        byte[] luma = {0, 1, 2, 3, 4, 5};
+        YuvFrame frame = frame(luma, width, height, 128, 128, 0);
+        frame.setMirrored(true);
+        assertLuma(new int[]{2, 1, 0, 5, 4, 3}, convert(frame, 3, 2));
+        frame = frame(luma, width, height, 128, 128, 90);
+        frame.setMirrored(true);
+        assertLuma(new int[]{0, 3, 1, 4, 2, 5}, convert(frame, 2, 3));
+    }
+
+    @Test
+    public void convert_cropAppliesToMirroredFrame() {
+        int width = 4, height = 4;
+        byte[] luma = new byte[width * height];
+        for (int i = 0; i < luma.length; i++) luma[i] = (byte) i;
+        YuvFrame frame = frame(luma, width, height, 128, 128, 0);
+        frame.setMirrored(true);
+        YuvConverter converter = new YuvConverter(2, 2);
+        converter.setCrop(0.5F, 0.5F, 1F, 1F);
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 2, 0F, 1F);
+        converter.convert(frame, preprocessor);
+        // The right half as displayed is the sensor's left half, flipped.
+        assertLuma(new int[]{9, 8, 13, 12}, read(preprocessor, 4));
+    }
+
+    @Test
+    public void convert_cropSelectsRegionOfUprightFrame() {
+        int width = 4, height = 4;
+        byte[] luma = new byte[width * height];
+        for (int i = 0; i < luma.length; i++) luma[i] = (byte) i;
+        YuvConverter converter = new YuvConverter(2, 2);
+        converter.setCrop(0.5F, 0.5F, 1F, 1F);
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 2, 0F, 1F);
+        converter.convert(frame(luma, width, height, 128, 128, 0), preprocessor);
+        assertLuma(new int[]{10, 11, 14, 15}, read(preprocessor, 4));
+    }
+
+    @Test
+    public void convert_honoursRowAndPixelStrides() {
+        // Rows padded to 8 bytes and interleaved chroma, as most devices deliver YUV_420_888.
+        int width = 4, height = 2, rowStride = 8;
+        ByteBuffer y = ByteBuffer.allocateDirect(rowStride * height);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) y.put(row * rowStride + col, (byte) (row * width + col));
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(rowStride);
+        for (int i = 0; i < rowStride; i++) uv.put(i, (byte) 128);
+        YuvFrame frame = new YuvFrame();
+        frame.set(y, uv, uv, rowStride, rowStride, 2, width, height, 0);
+        assertLuma(new int[]{0, 1, 2, 3, 4, 5, 6, 7}, convert(frame, width, height));
+    }
+
+    private static YuvFrame frame(byte[] luma, int width, int height, int u, int v, int rotation) {
+        int chromaWidth = (width + 1) / 2, chromaHeight = (height + 1) / 2;
+        ByteBuffer y = ByteBuffer.allocateDirect(luma.length);
+        y.put(luma);
+        ByteBuffer uPlane = ByteBuffer.allocateDirect(chromaWidth * chromaHeight);
+        ByteBuffer vPlane = ByteBuffer.allocateDirect(chromaWidth * chromaHeight);
+        for (int i = 0; i < chromaWidth * chromaHeight; i++) {
+            uPlane.put(i, (byte) u);
+            vPlane.put(i, (byte) v);
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.set(y, uPlane, vPlane, width, chromaWidth, 1, width, height, rotation);
+        return frame;
+    }
+
+    private static float[] convert(YuvFrame frame, int tensorWidth, int tensorHeight) {
+        TensorPreprocessor preprocessor = new TensorPreprocessor(tensorWidth, tensorHeight, 0F, 1F);
+        new YuvConverter(tensorWidth, tensorHeight).convert(frame, preprocessor);
+        return read(preprocessor, tensorWidth * tensorHeight);
+    }
+
+    private static float[] read(TensorPreprocessor preprocessor, int pixels) {
+        FloatBuffer floats = preprocessor.getInputBuffer().order(ByteOrder.nativeOrder()).asFloatBuffer();
+        float[] tensor = new float[pixels * 3];
+        floats.get(tensor);
+        return tensor;
+    }
+
+    private static void assertLuma(int[] expected, float[] tensor) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("pixel " + i, expected[i], tensor[i * 3], 0F);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Decoding and NMS have no Android dependencies, so they are compiled straight from the app
+// sources and measured on any JVM: ./gradlew :benchmark:run --args="--quick"
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/myapplication/BoundingBox.java",
+                "com/example/myapplication/DetectionBuffer.java",
+                "com/example/myapplication/DetectorConfig.java",
+                "com/example/myapplication/NonMaxSuppression.java",
+                "com/example/myapplication/SpatialGrid.java",
+                "com/example/myapplication/YoloDecoder.java",
+                "com/example/myapplication/benchmark/**"
+            )
+        }
+    }
+}
+
+application {
+    mainClass.set("com.example.myapplication.benchmark.PostprocessBenchmark")
+    // A fixed heap and collector keep allocation-heavy runs comparable between machines.
+    applicationDefaultJvmArgs = listOf("-Xms1g", "-Xmx1g", "-XX:+UseParallelGC")
+}
@@ -0,0 +1,158 @@
+package com.example.myapplication.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+// A small JMH-style harness: timed warm-up, then several fixed-length measurement iterations.
+// Every operation is timed on its own for the latency percentiles, and the bytes allocated by
+// the benchmark thread are read from the JVM's per-thread counter around each iteration.
+public class BenchmarkRunner {
+    private final long warmUpNanos;
+    private final long iterationNanos;
+    private final int iterations;
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private long[] samples;
+    // Results are folded in here so the JIT cannot drop the measured work.
+    private long blackhole;
+
+    public interface Operation {
+        long run();
+    }
+
+    public BenchmarkRunner(long warmUpMillis, long iterationMillis, int iterations) {
+        this.warmUpNanos = warmUpMillis * 1000000L;
+        this.iterationNanos = iterationMillis * 1000000L;
+        this.iterations = Math.max(1, iterations);
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.allocationBean = (com.sun.management.ThreadMXBean) bean;
+            this.allocationBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.allocationBean = null;
+        }
+        this.samples = new long[1 << 16];
+    }
+
+    public Result measure(String name, String scenario, Operation operation) {
+        long end = System.nanoTime() + warmUpNanos;
+        while (System.nanoTime() < end) {
+            blackhole += operation.run();
+        }
+        double[] opsPerSecond = new double[iterations];
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        int sampleCount = 0;
+        long harnessBytes = 0;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long ops = 0;
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long now = start;
+            end = start + iterationNanos;
+            while (now < end) {
+                long before = now;
+                blackhole += operation.run();
+                now = System.nanoTime();
+                if (sampleCount == samples.length) {
+                    samples = Arrays.copyOf(samples, samples.length * 2);
+                    // The harness's own allocation is not the benchmark's.
+                    harnessBytes += 8L * samples.length + ARRAY_HEADER_BYTES;
+                }
+                samples[sampleCount++] = now - before;
+                ops++;
+            }
+            long elapsed = now - start;
+            totalBytes += allocatedBytes() - allocatedBefore - harnessBytes;
+            harnessBytes = 0;
+            opsPerSecond[iteration] = ops * 1e9 / elapsed;
+            totalOps += ops;
+            totalNanos += elapsed;
+        }
+        Arrays.sort(samples, 0, sampleCount);
+        double mean = totalOps * 1e9 / totalNanos;
+        double variance = 0;
+        for (double value : opsPerSecond) {
+            variance += (value - mean) * (value - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+        double bytesPerOp = allocationBean == null ? Double.NaN : Math.max(0L, totalBytes) / (double) totalOps;
+        return new Result(name, scenario, mean, error,
+                percentile(sampleCount, 0.5), percentile(sampleCount, 0.99),
+                bytesPerOp, bytesPerOp * mean / (1 << 20));
+    }
+
+    public long getBlackhole() {
+        return blackhole;
+    }
+
+    private long allocatedBytes() {
+        return allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long percentile(int count, double quantile) {
+        if (count == 0) return 0;
+        return samples[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)];
+    }
+
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    public static class Result {
+        private final String name;
+        private final String scenario;
+        private final double opsPerSecond;
+        private final double opsPerSecondError;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final double bytesPerOp;
+        private final double allocationMbPerSecond;
+
+        Result(String name, String scenario, double opsPerSecond, double opsPerSecondError,
+               long p50Nanos, long p99Nanos, double bytesPerOp, double allocationMbPerSecond) {
+            this.name = name;
+            this.scenario = scenario;
+            this.opsPerSecond = opsPerSecond;
+            this.opsPerSecondError = opsPerSecondError;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.bytesPerOp = bytesPerOp;
+            this.allocationMbPerSecond = allocationMbPerSecond;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        // Sample standard deviation of ops/sec across the measurement iterations.
+        public double getOpsPerSecondError() {
+            return opsPerSecondError;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        // NaN when the JVM cannot count per-thread allocation.
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        public double getAllocationMbPerSecond() {
+            return allocationMbPerSecond;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.DetectionBuffer;
+import com.example.myapplication.DetectorConfig;
+import com.example.myapplication.NonMaxSuppression;
+import com.example.myapplication.YoloDecoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Measures the detection post-processing path (YoloDecoder, NonMaxSuppression and the two
+// together, as Detector.bestBox runs them) on synthetic and recorded output tensors.
+//
+//   ./gradlew :benchmark:run --args="[--quick] [--csv] [--filter text] [--recorded file classes]..."
+//
+// --quick shortens warm-up and measurement for a smoke run, --filter keeps only benchmarks
+// whose name or scenario contains the text, and --recorded adds a raw float32 tensor dumped
+// from a device (see YoloTensors.read) for a model with the given number of classes.
+public class PostprocessBenchmark {
+    private PostprocessBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean quick = false;
+        boolean csv = false;
+        String filter = null;
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick":
+                    quick = true;
+                    break;
+                case "--csv":
+                    csv = true;
+                    break;
+                case "--filter":
+                    filter = args[++i];
+                    break;
+                case "--recorded":
+                    File file = new File(args[++i]);
+                    int numClasses = Integer.parseInt(args[++i]);
+                    float[] tensor = YoloTensors.read(file, 4 + numClasses);
+                    scenarios.add(new Scenario("recorded " + file.getName(), tensor, numClasses));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        addSyntheticScenarios(scenarios);
+
+        BenchmarkRunner runner = quick
+                ? new BenchmarkRunner(QUICK_WARM_UP_MILLIS, QUICK_ITERATION_MILLIS, QUICK_ITERATIONS)
+                : new BenchmarkRunner(WARM_UP_MILLIS, ITERATION_MILLIS, ITERATIONS);
+        Report report = new Report(csv);
+        report.header();
+        for (Scenario scenario : scenarios) {
+            run(runner, report, filter, scenario);
+        }
+        runIoU(runner, report, filter);
+        // Printed so the measured work has an observable result.
+        System.err.println("blackhole " + runner.getBlackhole());
+    }
+
+    // Sweeps one dimension at a time around the shipped 640 px, 80-class model at 1% density.
+    private static void addSyntheticScenarios(List<Scenario> scenarios) {
+        for (int numElements : new int[]{2100, 8400, 33600}) {
+            scenarios.add(Scenario.synthetic(80, numElements, 0.01F));
+        }
+        scenarios.add(Scenario.synthetic(1, 8400, 0.01F));
+        scenarios.add(Scenario.synthetic(80, 8400, 0.001F));
+        scenarios.add(Scenario.synthetic(80, 8400, 0.1F));
+    }
+
+    private static void run(BenchmarkRunner runner, Report report, String filter, Scenario scenario) {
+        DetectorConfig config = new DetectorConfig();
+        float threshold = config.getConfidenceThreshold();
+        int numChannel = 4 + scenario.numClasses;
+        int numElements = scenario.tensor.length / numChannel;
+        YoloDecoder decoder = new YoloDecoder();
+        NonMaxSuppression nms = new NonMaxSuppression(config);
+        DetectionBuffer candidates = new DetectionBuffer();
+        DetectionBuffer out = new DetectionBuffer();
+        // Int8 output as the quantized model emits it: scores in [0, 1] over the full byte range.
+        byte[] quantized = YoloTensors.quantize(scenario.tensor, INT8_SCALE, INT8_ZERO_POINT);
+        decoder.decode(scenario.tensor, numChannel, numElements, scenario.labels, threshold, candidates);
+        DetectionBuffer decoded = new DetectionBuffer();
+        decoded.copyFrom(candidates);
+        String name = scenario.name + " candidates=" + decoded.size();
+
+        if (matches(filter, "decode.float", name)) {
+            report.add(runner.measure("decode.float", name, () ->
+                    decoder.decode(scenario.tensor, numChannel, numElements, scenario.labels, threshold, candidates)));
+        }
+        if (matches(filter, "decode.int8", name)) {
+            report.add(runner.measure("decode.int8", name, () ->
+                    decoder.decode(quantized, numChannel, numElements, scenario.labels, threshold,
+                            INT8_SCALE, INT8_ZERO_POINT, true, candidates)));
+        }
+        if (matches(filter, "nms", name)) {
+            report.add(runner.measure("nms", name, () -> nms.apply(decoded, out)));
+        }
+        if (matches(filter, "bestBox", name)) {
+            report.add(runner.measure("bestBox", name, () -> {
+                int count = decoder.decode(scenario.tensor, numChannel, numElements, scenario.labels, threshold, candidates);
+                return count == 0 ? 0 : nms.apply(candidates, out);
+            }));
+        }
+    }
+
+    // calculateIoU on its own, over a batch of box pairs so each operation outlasts the timer.
+    private static void runIoU(BenchmarkRunner runner, Report report, String filter) {
+        String name = IOU_PAIRS + " pairs";
+        if (!matches(filter, "calculateIoU", name)) return;
+        Random random = new Random(IOU_PAIRS);
+        float[] boxes = new float[IOU_PAIRS * 10];
+        for (int i = 0; i < boxes.length; i += 5) {
+            float w = 0.02F + random.nextFloat() * 0.3F;
+            float h = 0.02F + random.nextFloat() * 0.3F;
+            float x1 = random.nextFloat() * (1F - w);
+            float y1 = random.nextFloat() * (1F - h);
+            boxes[i] = x1;
+            boxes[i + 1] = y1;
+            boxes[i + 2] = x1 + w;
+            boxes[i + 3] = y1 + h;
+            boxes[i + 4] = w * h;
+        }
+        report.add(runner.measure("calculateIoU", name, () -> {
+            float sum = 0F;
+            for (int i = 0; i < boxes.length; i += 10) {
+                sum += NonMaxSuppression.calculateIoU(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4],
+                        boxes[i + 5], boxes[i + 6], boxes[i + 7], boxes[i + 8], boxes[i + 9]);
+            }
+            return Float.floatToRawIntBits(sum);
+        }));
+    }
+
+    private static boolean matches(String filter, String benchmark, String scenario) {
+        return filter == null || benchmark.contains(filter) || scenario.contains(filter);
+    }
+
+    private static class Scenario {
+        private final String name;
+        private final float[] tensor;
+        private final int numClasses;
+        private final List<String> labels;
+
+        Scenario(String name, float[] tensor, int numClasses) {
+            this.name = name;
+            this.tensor = tensor;
+            this.numClasses = numClasses;
+            this.labels = new ArrayList<>(numClasses);
+            for (int i = 0; i < numClasses; i++) {
+                labels.add("class" + i);
+            }
+        }
+
+        static Scenario synthetic(int numClasses, int numElements, float density) {
+            // Seeded from the shape so each scenario is identical from run to run.
+            long seed = numClasses * 1000003L + numElements * 31L + Float.floatToIntBits(density);
+            float[] tensor = YoloTensors.synthetic(seed, numClasses, numElements, density,
+                    new DetectorConfig().getConfidenceThreshold());
+            String name = String.format(Locale.ROOT, "synthetic classes=%d elements=%d density=%.1f%%",
+                    numClasses, numElements, density * 100F);
+            return new Scenario(name, tensor, numClasses);
+        }
+    }
+
+    private static class Report {
+        private final boolean csv;
+
+        Report(boolean csv) {
+            this.csv = csv;
+        }
+
+        void header() {
+            Runtime runtime = Runtime.getRuntime();
+            String environment = String.format(Locale.ROOT, "%s %s, %s %s, %d cpus, max heap %d MB",
+                    System.getProperty("java.vm.name"), System.getProperty("java.version"),
+                    System.getProperty("os.name"), System.getProperty("os.arch"),
+                    runtime.availableProcessors(), runtime.maxMemory() >> 20);
+            if (csv) {
+                System.out.println("# " + environment);
+                System.out.println("benchmark,scenario,ops_per_s,ops_per_s_error,p50_ns,p99_ns,bytes_per_op,alloc_mb_per_s");
+            } else {
+                System.out.println(environment);
+                System.out.printf(Locale.ROOT, "%-13s %-58s %12s %10s %10s %10s %10s %9s%n",
+                        "benchmark", "scenario", "ops/s", "error", "p50 us", "p99 us", "B/op", "MB/s");
+            }
+        }
+
+        void add(BenchmarkRunner.Result result) {
+            if (csv) {
+                System.out.printf(Locale.ROOT, "%s,\"%s\",%.1f,%.1f,%d,%d,%.1f,%.2f%n",
+                        result.getName(), result.getScenario(), result.getOpsPerSecond(), result.getOpsPerSecondError(),
+                        result.getP50Nanos(), result.getP99Nanos(), result.getBytesPerOp(),
+                        result.getAllocationMbPerSecond());
+            } else {
+                System.out.printf(Locale.ROOT, "%-13s %-58s %12.1f %10.1f %10.2f %10.2f %10.1f %9.2f%n",
+                        result.getName(), result.getScenario(), result.getOpsPerSecond(), result.getOpsPerSecondError(),
+                        result.getP50Nanos() / 1000.0, result.getP99Nanos() / 1000.0, result.getBytesPerOp(),
+                        result.getAllocationMbPerSecond());
+            }
+        }
+    }
+
+    private static final long WARM_UP_MILLIS = 1000;
+    private static final long ITERATION_MILLIS = 1000;
+    private static final int ITERATIONS = 5;
+    private static final long QUICK_WARM_UP_MILLIS = 100;
+    private static final long QUICK_ITERATION_MILLIS = 100;
+    private static final int QUICK_ITERATIONS = 3;
+    private static final float INT8_SCALE = 1F / 255F;
+    private static final int INT8_ZERO_POINT = -128;
+    private static final int IOU_PAIRS = 1024;
+}
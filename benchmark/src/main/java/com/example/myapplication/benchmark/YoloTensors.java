@@ -0,0 +1,90 @@
+package com.example.myapplication.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Random;
+
+// YOLOv8 output tensors laid out like the model's [1, 4 + classes, elements] output, channel
+// major. Synthetic tensors are seeded, so every run and every machine sees the same data.
+public class YoloTensors {
+    private YoloTensors() {
+    }
+
+    // density is the fraction of anchors scoring above confidenceThreshold. They are clustered
+    // around a few objects, like the overlapping candidates a real frame produces; the other
+    // anchors carry low background scores spread over all classes.
+    public static float[] synthetic(long seed, int numClasses, int numElements, float density, float confidenceThreshold) {
+        Random random = new Random(seed);
+        int numChannel = 4 + numClasses;
+        float[] tensor = new float[numChannel * numElements];
+        int candidates = Math.round(density * numElements);
+        int objects = Math.max(1, candidates / CANDIDATES_PER_OBJECT);
+        float[] objectBoxes = new float[objects * 4];
+        int[] objectClasses = new int[objects];
+        for (int o = 0; o < objects; o++) {
+            float w = 0.05F + random.nextFloat() * 0.3F;
+            float h = 0.05F + random.nextFloat() * 0.3F;
+            objectBoxes[o * 4] = w / 2F + random.nextFloat() * (1F - w);
+            objectBoxes[o * 4 + 1] = h / 2F + random.nextFloat() * (1F - h);
+            objectBoxes[o * 4 + 2] = w;
+            objectBoxes[o * 4 + 3] = h;
+            objectClasses[o] = random.nextInt(numClasses);
+        }
+        for (int c = 0; c < numElements; c++) {
+            float w = 0.02F + random.nextFloat() * 0.2F;
+            float h = 0.02F + random.nextFloat() * 0.2F;
+            tensor[c] = w / 2F + random.nextFloat() * (1F - w);
+            tensor[c + numElements] = h / 2F + random.nextFloat() * (1F - h);
+            tensor[c + numElements * 2] = w;
+            tensor[c + numElements * 3] = h;
+            for (int i = 4; i < numChannel; i++) {
+                tensor[c + numElements * i] = random.nextFloat() * confidenceThreshold * 0.5F;
+            }
+        }
+        // Spread the candidates over the anchors instead of packing them at the start.
+        for (int k = 0; k < candidates; k++) {
+            int c = (int) ((long) k * numElements / candidates);
+            int o = random.nextInt(objects);
+            float w = objectBoxes[o * 4 + 2] * (0.9F + random.nextFloat() * 0.2F);
+            float h = objectBoxes[o * 4 + 3] * (0.9F + random.nextFloat() * 0.2F);
+            tensor[c] = clamp(objectBoxes[o * 4] + (random.nextFloat() - 0.5F) * 0.1F * w, w / 2F, 1F - w / 2F);
+            tensor[c + numElements] = clamp(objectBoxes[o * 4 + 1] + (random.nextFloat() - 0.5F) * 0.1F * h, h / 2F, 1F - h / 2F);
+            tensor[c + numElements * 2] = w;
+            tensor[c + numElements * 3] = h;
+            float score = confidenceThreshold + (1F - confidenceThreshold) * (0.01F + random.nextFloat() * 0.98F);
+            tensor[c + numElements * (4 + objectClasses[o])] = score;
+        }
+        return tensor;
+    }
+
+    // Quantizes as an INT8 model output would be, with real = (q - zeroPoint) * scale.
+    public static byte[] quantize(float[] tensor, float scale, int zeroPoint) {
+        byte[] quantized = new byte[tensor.length];
+        for (int i = 0; i < tensor.length; i++) {
+            int q = Math.round(tensor[i] / scale) + zeroPoint;
+            quantized[i] = (byte) Math.max(-128, Math.min(127, q));
+        }
+        return quantized;
+    }
+
+    // A recorded output tensor: the raw little-endian float32 contents of the model's output
+    // buffer, as dumped from TensorSlot.getOutputBuffer() on a device.
+    public static float[] read(File file, int numChannel) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length % (4 * numChannel) != 0) {
+            throw new IOException(file + " does not hold a whole number of " + numChannel + "-channel anchors");
+        }
+        float[] tensor = new float[bytes.length / 4];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(tensor);
+        return tensor;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static final int CANDIDATES_PER_OBJECT = 20;
+}